@@ -0,0 +1,103 @@
+package io.github.s1m0n;
+
+/*
+ * Copyright 2025 Simon Marksteiner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.apache.avro.Schema;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
+
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of synthetic schemas through the map based converter and the streaming writer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConverterBenchmark {
+
+    private static final ObjectWriter WRITER = new ObjectMapper().writerWithDefaultPrettyPrinter();
+
+    @Param({"8", "32"})
+    public int width;
+
+    @Param({"3"})
+    public int depth;
+
+    @Param({"1", "8"})
+    public int unionFanOut;
+
+    @Param({"false", "true"})
+    public boolean shareNamedTypes;
+
+    @Param({"false"})
+    public boolean useReferences;
+
+    private Schema schema;
+    private AvroToJsonSchemaConverter converter;
+    private StreamingSchemaWriter streamingWriter;
+
+    @Setup
+    public void setUp() {
+        schema = new Schema.Parser().parse(SyntheticSchemas.record(width, depth, unionFanOut, shareNamedTypes));
+        converter = AvroToJsonSchemaConverter.builder().useReferences(useReferences).build();
+        streamingWriter = new StreamingSchemaWriter(converter);
+    }
+
+    @Benchmark
+    public Map<String, Object> convert() {
+        return converter.convert(schema);
+    }
+
+    @Benchmark
+    public void convertAndSerialize(Blackhole bh) {
+        WRITER.writeValue(new BlackholeOutputStream(bh), converter.convert(schema));
+    }
+
+    @Benchmark
+    public void stream(Blackhole bh) {
+        try (JsonGenerator gen = WRITER.createGenerator(new BlackholeOutputStream(bh))) {
+            streamingWriter.write(schema, gen);
+        }
+    }
+
+    static final class BlackholeOutputStream extends OutputStream {
+        private final Blackhole bh;
+
+        BlackholeOutputStream(Blackhole bh) {
+            this.bh = bh;
+        }
+
+        @Override
+        public void write(int b) {
+            bh.consume(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bh.consume(b);
+        }
+    }
+}
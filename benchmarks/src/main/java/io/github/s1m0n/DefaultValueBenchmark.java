@@ -0,0 +1,67 @@
+package io.github.s1m0n;
+
+/*
+ * Copyright 2025 Simon Marksteiner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.apache.avro.Schema;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of a schema whose field default is a large nested map.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DefaultValueBenchmark {
+
+    private static final ObjectWriter WRITER = new ObjectMapper().writerWithDefaultPrettyPrinter();
+
+    @Param({"100", "10000"})
+    public int entries;
+
+    private Schema schema;
+    private AvroToJsonSchemaConverter converter;
+    private StreamingSchemaWriter streamingWriter;
+
+    @Setup
+    public void setUp() {
+        schema = new Schema.Parser().parse(SyntheticSchemas.largeDefaults(entries));
+        converter = new AvroToJsonSchemaConverter();
+        streamingWriter = new StreamingSchemaWriter(converter);
+    }
+
+    @Benchmark
+    public Map<String, Object> convert() {
+        return converter.convert(schema);
+    }
+
+    @Benchmark
+    public void stream(Blackhole bh) {
+        try (JsonGenerator gen = WRITER.createGenerator(new ConverterBenchmark.BlackholeOutputStream(bh))) {
+            streamingWriter.write(schema, gen);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package io.github.s1m0n;
+
+/*
+ * Copyright 2025 Simon Marksteiner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end run of {@link AvroToJsonMojo} over a generated directory of schema files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MojoBenchmark {
+
+    @Param({"200"})
+    public int files;
+
+    @Param({"1", "0"})
+    public int parallelism;
+
+    @Param({"false", "true"})
+    public boolean streaming;
+
+    private Path workDir;
+    private AvroToJsonMojo mojo;
+
+    @Setup
+    public void setUp() throws Exception {
+        workDir = Files.createTempDirectory("avro-to-json-bench");
+        Path input = Files.createDirectories(workDir.resolve("avro"));
+        for (int i = 0; i < files; i++) {
+            Path dir = Files.createDirectories(input.resolve("group" + (i % 10)));
+            Files.writeString(dir.resolve("schema" + i + ".avsc"), SyntheticSchemas.record(8, 2, 4, i % 2 == 0));
+        }
+        mojo = new AvroToJsonMojo();
+        mojo.setLog(new QuietLog());
+        set("input", input.toFile());
+        set("outputDirectory", workDir.resolve("out").toFile());
+        set("buildStateFile", workDir.resolve("state/build-state.json").toFile());
+        set("recursive", true);
+        set("parallelism", parallelism);
+        set("streaming", streaming);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(workDir)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public void execute() throws MojoExecutionException {
+        mojo.execute();
+    }
+
+    private void set(String name, Object value) throws ReflectiveOperationException {
+        Field field = AvroToJsonMojo.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(mojo, value);
+    }
+
+    private static final class QuietLog extends SystemStreamLog {
+        @Override
+        public boolean isInfoEnabled() {
+            return false;
+        }
+
+        @Override
+        public void info(CharSequence content) {
+        }
+    }
+}
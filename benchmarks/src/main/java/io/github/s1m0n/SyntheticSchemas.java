@@ -0,0 +1,120 @@
+package io.github.s1m0n;
+
+/*
+ * Copyright 2025 Simon Marksteiner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.*;
+
+/**
+ * Generates Avro schema JSON of configurable shape for the benchmarks.
+ */
+final class SyntheticSchemas {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final List<String> UNION_PRIMITIVES = List.of("string", "long", "double", "boolean", "bytes");
+
+    private SyntheticSchemas() {
+    }
+
+    /**
+     * Builds a record with {@code width} fields per level, nested {@code depth} levels deep through a record field and
+     * an array-of-records field, with unions of {@code unionFanOut} non-null branches. With
+     * {@code shareNamedTypes} all records of one level reuse a single named type instead of defining their own.
+     */
+    static String record(int width, int depth, int unionFanOut, boolean shareNamedTypes) {
+        return MAPPER.writeValueAsString(record("Root", width, depth, unionFanOut, shareNamedTypes, new HashSet<>(), new int[1]));
+    }
+
+    private static Object record(String name, int width, int depth, int unionFanOut, boolean share,
+                                 Set<String> defined, int[] counter) {
+        if (share && !defined.add(name)) return name;
+        List<Object> fields = new ArrayList<>();
+        for (int i = 0; i < width; i++) {
+            Object type;
+            switch (i % 6) {
+                case 0 -> type = "string";
+                case 1 -> type = Map.of("type", "long", "logicalType", "timestamp-millis");
+                case 2 -> type = union(name + "_" + i, unionFanOut);
+                case 3 -> type = depth > 0 ? record(nestedName(depth, share, counter), width, depth - 1, unionFanOut, share, defined, counter) : "int";
+                case 4 -> type = depth > 0
+                        ? Map.of("type", "array", "items", record(nestedName(depth, share, counter), width, depth - 1, unionFanOut, share, defined, counter))
+                        : Map.of("type", "array", "items", "double");
+                default -> type = Map.of("type", "map", "values", List.of("null", "string"));
+            }
+            Map<String, Object> field = new LinkedHashMap<>();
+            field.put("name", "f" + i);
+            field.put("type", type);
+            field.put("doc", "Field " + i);
+            fields.add(field);
+        }
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("type", "record");
+        record.put("name", name);
+        record.put("namespace", "bench");
+        record.put("doc", "Record " + name);
+        record.put("fields", fields);
+        return record;
+    }
+
+    private static String nestedName(int depth, boolean share, int[] counter) {
+        return share ? "Level" + depth : "Nested" + (counter[0]++);
+    }
+
+    private static List<Object> union(String prefix, int fanOut) {
+        List<Object> branches = new ArrayList<>();
+        branches.add("null");
+        for (int i = 0; i < fanOut; i++) {
+            if (i < UNION_PRIMITIVES.size()) {
+                branches.add(UNION_PRIMITIVES.get(i));
+            } else {
+                branches.add(Map.of("type", "enum", "name", prefix + "_E" + i, "symbols", List.of("A", "B")));
+            }
+        }
+        return branches;
+    }
+
+    /**
+     * Builds a record whose {@code lookup} field carries a map default with {@code entries} nested entries.
+     */
+    static String largeDefaults(int entries) {
+        Map<String, Object> entryType = new LinkedHashMap<>();
+        entryType.put("type", "record");
+        entryType.put("name", "Entry");
+        entryType.put("fields", List.of(
+                Map.of("name", "code", "type", "string"),
+                Map.of("name", "weights", "type", Map.of("type", "array", "items", "double")),
+                Map.of("name", "limits", "type", Map.of("type", "map", "values", "long"))));
+        Map<String, Object> defaults = new LinkedHashMap<>();
+        for (int i = 0; i < entries; i++) {
+            defaults.put("key" + i, Map.of(
+                    "code", "C" + i,
+                    "weights", List.of(i * 0.5, i * 0.25, 1.0),
+                    "limits", Map.of("min", (long) i, "max", (long) i * 1000)));
+        }
+        Map<String, Object> field = new LinkedHashMap<>();
+        field.put("name", "lookup");
+        field.put("type", Map.of("type", "map", "values", entryType));
+        field.put("default", defaults);
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("type", "record");
+        record.put("name", "Lookup");
+        record.put("namespace", "bench");
+        record.put("fields", List.of(field));
+        return MAPPER.writeValueAsString(record);
+    }
+}
@@ -0,0 +1,191 @@
+package io.github.s1m0n;
+
+/*
+ * Copyright 2025 Simon Marksteiner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.apache.avro.Schema;
+import org.apache.avro.util.internal.Accessor;
+import tools.jackson.core.JsonGenerator;
+
+import java.util.*;
+
+/**
+ * Reads field default values from the JSON node Avro parsed them into, the only place that depends on Avro internals.
+ * <p>
+ * The public {@link Schema.Field#defaultVal()} deep-copies maps and lists, coerces numbers to the field type and
+ * turns bytes defaults into {@code byte[]}; the node keeps every default exactly as written in the schema. Avro only
+ * exposes it through {@link Accessor} from its internal package, as a Jackson 2 {@link JsonNode} - not the Jackson 3
+ * this plugin uses otherwise. Jackson 2 is declared in the POM at the version Avro is built with; both this class and
+ * that version have to be revisited when upgrading Avro.
+ */
+final class AvroDefaultValues {
+
+    private AvroDefaultValues() {
+    }
+
+    /**
+     * The single use of Avro's internal accessor. {@code AvroDefaultValuesTest} pins what it returns, so an Avro
+     * upgrade that changes or removes it fails the build instead of changing the generated defaults.
+     */
+    private static JsonNode node(Schema.Field f) {
+        return Accessor.defaultValue(f);
+    }
+
+    /**
+     * Returns the default value of a field as plain Java values (maps, lists, strings, numbers, booleans and
+     * {@code null}); numbers keep their parsed representation. Containers are created empty and filled from a work
+     * stack, so deeply nested defaults do not need a deep thread stack.
+     */
+    static Object toJava(Schema.Field f) {
+        Deque<Pending> pending = new ArrayDeque<>();
+        Object result = javaValue(node(f), pending);
+        while (!pending.isEmpty()) {
+            Pending next = pending.pop();
+            if (next.list() != null) {
+                for (JsonNode el : next.source()) next.list().add(javaValue(el, pending));
+            } else {
+                for (Map.Entry<String, JsonNode> entry : next.source().properties()) {
+                    next.map().put(entry.getKey(), javaValue(entry.getValue(), pending));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A JSON array or object whose elements still have to be added to the Java list or map created for it.
+     */
+    private record Pending(JsonNode source, List<Object> list, Map<String, Object> map) {
+    }
+
+    private static Object javaValue(JsonNode node, Deque<Pending> pending) {
+        switch (node.getNodeType()) {
+            case STRING:
+                return node.textValue();
+            case BOOLEAN:
+                return node.booleanValue();
+            case NUMBER:
+                // Keep the parsed representation; a decimal must not be widened to double
+                return node.numberValue();
+            case ARRAY:
+                List<Object> list = new ArrayList<>(node.size());
+                pending.push(new Pending(node, list, null));
+                return list;
+            case OBJECT:
+                Map<String, Object> map = new LinkedHashMap<>();
+                pending.push(new Pending(node, null, map));
+                return map;
+            case BINARY:
+                return node.asText();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns the default value of a field as compact JSON text, exactly as written in the schema. Unlike
+     * {@link JsonNode#toString()}, it is not limited in depth.
+     */
+    static String json(Schema.Field f) {
+        StringBuilder json = new StringBuilder();
+        // JSON nodes still to write, and the punctuation between them
+        Deque<Object> pending = new ArrayDeque<>();
+        pending.push(node(f));
+        while (!pending.isEmpty()) {
+            Object next = pending.pop();
+            if (!(next instanceof JsonNode node)) {
+                json.append(next);
+            } else if (node.isArray() || node.isObject()) {
+                json.append(node.isArray() ? '[' : '{');
+                pending.push(node.isArray() ? "]" : "}");
+                List<Map.Entry<String, JsonNode>> elements = new ArrayList<>();
+                if (node.isArray()) {
+                    for (JsonNode element : node) elements.add(Map.entry("", element));
+                } else {
+                    for (Map.Entry<String, JsonNode> e : node.properties()) elements.add(e);
+                }
+                for (int i = elements.size() - 1; i >= 0; i--) {
+                    pending.push(elements.get(i).getValue());
+                    String name = node.isObject() ? TextNode.valueOf(elements.get(i).getKey()) + ":" : "";
+                    pending.push(i > 0 ? "," + name : name);
+                }
+            } else {
+                json.append(node);
+            }
+        }
+        return json.toString();
+    }
+
+    /**
+     * Copies the default value of a field token by token to {@code gen}, without converting it to Java objects first.
+     * Nested values are written from a stack of steps instead of recursively.
+     */
+    static void write(Schema.Field f, JsonGenerator gen) {
+        Deque<Runnable> steps = new ArrayDeque<>();
+        write(node(f), gen, steps);
+        while (!steps.isEmpty()) steps.pop().run();
+    }
+
+    /**
+     * Writes a scalar right away, or the start of a container, scheduling its elements and its end.
+     */
+    private static void write(JsonNode node, JsonGenerator gen, Deque<Runnable> steps) {
+        switch (node.getNodeType()) {
+            case OBJECT: {
+                gen.writeStartObject();
+                steps.push(gen::writeEndObject);
+                List<Map.Entry<String, JsonNode>> properties = new ArrayList<>(node.properties());
+                for (int i = properties.size() - 1; i >= 0; i--) {
+                    Map.Entry<String, JsonNode> e = properties.get(i);
+                    steps.push(() -> {
+                        gen.writeName(e.getKey());
+                        write(e.getValue(), gen, steps);
+                    });
+                }
+                break;
+            }
+            case ARRAY:
+                gen.writeStartArray();
+                steps.push(gen::writeEndArray);
+                for (int i = node.size() - 1; i >= 0; i--) {
+                    JsonNode element = node.get(i);
+                    steps.push(() -> write(element, gen, steps));
+                }
+                break;
+            case STRING:
+            case BINARY:
+                gen.writeString(node.asText());
+                break;
+            case NUMBER:
+                switch (node.numberType()) {
+                    case INT -> gen.writeNumber(node.intValue());
+                    case LONG -> gen.writeNumber(node.longValue());
+                    case BIG_INTEGER -> gen.writeNumber(node.bigIntegerValue());
+                    case FLOAT -> gen.writeNumber(node.floatValue());
+                    case DOUBLE -> gen.writeNumber(node.doubleValue());
+                    case BIG_DECIMAL -> gen.writeNumber(node.decimalValue());
+                }
+                break;
+            case BOOLEAN:
+                gen.writeBoolean(node.booleanValue());
+                break;
+            default:
+                gen.writeNull();
+        }
+    }
+}
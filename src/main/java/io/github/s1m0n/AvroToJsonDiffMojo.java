@@ -0,0 +1,144 @@
+package io.github.s1m0n;
+
+/*
+ * Copyright 2025 Simon Marksteiner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import org.apache.avro.Schema;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Validates all schemas like {@code validate-only} and reports the structural changes of every named type since the
+ * previous run: added and removed types and fields, fields becoming required or nullable, and widened or narrowed
+ * enums and unions, each with whether it keeps data backward and forward compatible. The named types of each run are
+ * kept in {@code diffSnapshot} by fingerprint, so only types that changed are compared. With {@code warnOnly}, the
+ * types of schemas that failed are compared as unchanged and the snapshot is kept until all schemas pass.
+ */
+@Mojo(name = "schema-diff", defaultPhase = LifecyclePhase.VERIFY, requiresDependencyResolution = ResolutionScope.NONE, threadSafe = true)
+public class AvroToJsonDiffMojo extends AvroToJsonMojo {
+
+    /**
+     * File holding the named types of the previous run. Keep it outside of {@code target}, e.g. next to the schemas
+     * and under version control, to compare against the last release instead of the last build.
+     */
+    @Parameter(property = "diffSnapshot", alias = "diffSnapshot", defaultValue = "${project.build.directory}/avro-to-json/schema-snapshot.json")
+    private File diffSnapshot;
+
+    /**
+     * File to write the machine-readable report to.
+     */
+    @Parameter(property = "diffReport", alias = "diffReport", defaultValue = "${project.build.directory}/avro-to-json/schema-diff.json")
+    private File diffReport;
+
+    /**
+     * Whether to replace the snapshot with the named types of this run; disable to keep comparing against a fixed
+     * baseline.
+     */
+    @Parameter(property = "updateSnapshot", alias = "updateSnapshot", defaultValue = "true")
+    private boolean updateSnapshot;
+
+    private final Map<String, SchemaDiff.Shape> shapes = new HashMap<>();
+    // Named types of the schemas that failed, and whether a failed schema was not even JSON to take them from
+    private final Set<String> failedTypes = new HashSet<>();
+    private boolean failedUnreadable;
+    private int failed;
+
+    @Override
+    boolean dryRun() {
+        return true;
+    }
+
+    @Override
+    FailureMode defaultFailureMode() {
+        return FailureMode.COLLECT_ALL;
+    }
+
+    @Override
+    void converted(SourceFile source, Schema schema) {
+        SchemaDiff.collect(schema, converter(), shapes);
+    }
+
+    @Override
+    void skipped(SourceFile source) {
+        failed++;
+        try {
+            String content = Files.readString(source.path());
+            failedTypes.addAll(SchemaGraph.scan(source.relativeName(), SchemaSources.schemaJson(source, content)).defines());
+        } catch (Exception e) {
+            failedUnreadable = true;
+        }
+    }
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        super.execute();
+        Map<String, SchemaDiff.Shape> previous = null;
+        try {
+            previous = SchemaDiff.load(diffSnapshot);
+        } catch (Exception e) {
+            getLog().warn("Ignoring unreadable schema snapshot " + diffSnapshot + ": " + e.getMessage());
+        }
+        Map<String, SchemaDiff.Shape> current = shapes;
+        if (previous != null && failed > 0) {
+            // A type of a schema that failed is unknown, not removed
+            current = new HashMap<>(shapes);
+            for (Map.Entry<String, SchemaDiff.Shape> e : previous.entrySet()) {
+                if (failedUnreadable || failedTypes.contains(e.getKey())) current.putIfAbsent(e.getKey(), e.getValue());
+            }
+        }
+        SchemaDiff.Report report = previous != null
+                ? SchemaDiff.diff(previous, current)
+                : new SchemaDiff.Report(true, current.size(), 0, 0, 0, List.of());
+        try {
+            SchemaDiff.write(diffReport, report);
+            if (updateSnapshot && failed == 0) SchemaDiff.save(diffSnapshot, shapes);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not write schema diff", e);
+        }
+        if (updateSnapshot && failed > 0) {
+            getLog().warn("Not updating " + diffSnapshot + " because " + failed + " schema(s) failed");
+        }
+        if (report.baseline()) {
+            if (failed == 0) {
+                getLog().info("No schema snapshot yet, recorded " + shapes.size() + " named type(s) in " + diffSnapshot);
+            }
+            return;
+        }
+        for (SchemaDiff.Change change : report.changes()) {
+            String line = change.type() + (change.field() != null ? "." + change.field() : "") + ": " + change.change()
+                    + " (" + change.detail() + ")";
+            if (change.backward() && change.forward()) {
+                getLog().info(line);
+            } else {
+                getLog().warn(line);
+            }
+        }
+        getLog().info(report.changedTypes() + " of " + report.types() + " named type(s) changed, "
+                + report.backwardIncompatible() + " backward and " + report.forwardIncompatible()
+                + " forward incompatible change(s); report written to " + diffReport);
+    }
+}
@@ -16,7 +16,6 @@ package io.github.s1m0n;
  * limitations under the License.
  */
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.avro.Schema;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -24,97 +23,1218 @@ import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.annotations.ResolutionScope;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.util.Map;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
 
-@Mojo(name = "avsc-to-json", defaultPhase = LifecyclePhase.GENERATE_RESOURCES, requiresDependencyResolution = ResolutionScope.NONE)
+@Mojo(name = "avsc-to-json", defaultPhase = LifecyclePhase.GENERATE_RESOURCES, requiresDependencyResolution = ResolutionScope.NONE, threadSafe = true)
 public class AvroToJsonMojo extends AbstractMojo {
+
+    /**
+     * Input file or directory containing Avro schema files: schemas (.avsc), protocols (.avpr) or IDL (.avdl). A jar
+     * or zip archive is scanned like a directory, reading its entries in place. Required unless {@code inputs} or
+     * {@code classpathInput} is set.
+     */
+    @Parameter(property = "input", alias = "input")
+    File input;
+
     /**
-     * Input file or directory containing Avro schema JSON files (.avsc).
+     * Resource directory on the plugin's class path to convert instead of {@code input}, e.g.
+     * {@code com/shop/schemas} of a schema jar added to the plugin's {@code <dependencies>}. The directory is scanned
+     * in every class path entry that contains it; a file found in several entries is taken from the first one.
      */
-    @Parameter(property = "input", alias = "input", required = true)
-    private File input;
+    @Parameter(property = "classpathInput", alias = "classpathInput")
+    String classpathInput;
+
+    /**
+     * Several inputs to convert in one pass, each with its own {@code outputDirectory}, e.g. the schema directories
+     * of all modules of a reactor build. Inputs are converted in the given order with one converter; with
+     * {@code sharedTypes}, schemas can use named types of earlier inputs and every named type is parsed once. Replaces
+     * {@code input}; each input keeps its own build state next to {@code buildStateFile}.
+     */
+    @Parameter(alias = "inputs")
+    List<InputRoot> inputs;
 
     /**
      * Output directory where JSON Schema files will be written.
      */
     @Parameter(property = "outputDirectory", alias = "outputDirectory", defaultValue = "${project.build.directory}/generated-schemas", required = true)
-    private File outputDirectory;
+    File outputDirectory;
 
     /**
      * Whether to search directories recursively for .avsc files.
      */
     @Parameter(property = "recursive", alias = "recursive", defaultValue = "true")
-    private boolean recursive;
+    boolean recursive;
+
+    /**
+     * Glob patterns of the schema files to convert, relative to {@code input}. A leading {@code **}{@code /} also
+     * matches files directly in {@code input}. Defaults to {@code **}{@code /*.avsc}; add e.g. {@code **}{@code /*.avdl}
+     * to convert protocols and IDL files, each into one output with all of their types.
+     */
+    @Parameter(property = "includes", alias = "includes")
+    private List<String> includes;
+
+    /**
+     * Glob patterns of files and directories below {@code input} to skip.
+     */
+    @Parameter(property = "excludes", alias = "excludes")
+    private List<String> excludes;
+
+    /**
+     * Whether to follow symbolic links while scanning {@code input}. Links that lead back into one of their parent
+     * directories are skipped with a warning.
+     */
+    @Parameter(property = "followSymlinks", alias = "followSymlinks", defaultValue = "true")
+    private boolean followSymlinks;
+
+    /**
+     * Maximum number of schema files to accept from {@code input}; the build fails if more are found, e.g. because
+     * {@code input} points at a too broad directory. {@code 0} disables the limit.
+     */
+    @Parameter(property = "maxFiles", alias = "maxFiles", defaultValue = "0")
+    private int maxFiles;
+
+    /**
+     * Whether to only reconvert schemas that changed since the last build, together with the schemas that depend on
+     * their named types. Outputs of deleted schemas are removed.
+     */
+    @Parameter(property = "incremental", alias = "incremental", defaultValue = "false")
+    private boolean incremental;
+
+    /**
+     * File in which the incremental build state is kept between builds. Builds sharing its directory, e.g. modules
+     * of a parallel {@code mvn -T} build, wait for each other while they read and write their state.
+     */
+    @Parameter(property = "buildStateFile", alias = "buildStateFile", defaultValue = "${project.build.directory}/avro-to-json/build-state.json")
+    private File buildStateFile;
+
+    /**
+     * Number of worker threads that parse and convert schemas. {@code 0} uses the number of available processors.
+     * Files are always written and logged in discovery order.
+     */
+    @Parameter(property = "parallelism", alias = "parallelism", defaultValue = "0")
+    private int parallelism;
+
+    /**
+     * Maximum number of schema files being converted or waiting to be written at a time; conversion (and with
+     * {@code boundedMemory} the scan) pauses while this many files are in flight. {@code 0} uses twice the number of
+     * worker threads.
+     */
+    @Parameter(property = "maxInFlight", alias = "maxInFlight", defaultValue = "0")
+    private int maxInFlight;
+
+    /**
+     * Whether to convert schema files while the input is still being scanned, so only the files in flight are held in
+     * memory instead of the complete file list, for very large schema trees on small heaps. Works with and without
+     * {@code streaming} and {@code canonical}, and never caches converted schemas. Supports plain per-file conversion
+     * only: cannot be combined with {@code sharedTypes}, {@code bundle}, {@code incremental} or
+     * {@code deduplicate}.
+     */
+    @Parameter(property = "boundedMemory", alias = "boundedMemory", defaultValue = "false")
+    private boolean boundedMemory;
+
+    /**
+     * Whether to emit every named type (record, enum, fixed) once under {@code definitions} and refer to it through
+     * {@code $ref}, instead of inlining it at each use. Recursive types are always referenced.
+     */
+    @Parameter(property = "useReferences", alias = "useReferences", defaultValue = "false")
+    private boolean useReferences;
+
+    /**
+     * JSON Schema draft of the generated documents: {@code draft-07}, {@code 2019-09} or {@code 2020-12}. The newer
+     * drafts keep definitions under {@code $defs} and give each an {@code $anchor} with the Avro full name.
+     */
+    @Parameter(property = "draft", alias = "draft", defaultValue = "draft-07")
+    private String draft;
+
+    /**
+     * Whether to parse all schemas into one shared parser, so a schema can reference named types defined in other
+     * files. Files are parsed in dependency order and every named type is parsed once; a named type may then only be
+     * defined by a single file.
+     */
+    @Parameter(property = "sharedTypes", alias = "sharedTypes", defaultValue = "false")
+    private boolean sharedTypes;
+
+    /**
+     * Whether to write JSON Schemas directly from the Avro schema to the output file, instead of building the
+     * complete JSON tree in memory first. Both produce identical output. The {@code watch} goal always builds the
+     * tree, as only the tree conversion uses its cache of converted types.
+     */
+    @Parameter(property = "streaming", alias = "streaming", defaultValue = "true")
+    private boolean streaming;
+
+    /**
+     * Whether to write canonical output: object keys in sorted order, numbers of default values in their shortest plain
+     * form and {@code \n} line breaks on every platform. Together with the sorted processing order, the same inputs
+     * then give byte-identical outputs on any machine, e.g. for remote build caches. Implies {@code streaming=false}.
+     */
+    @Parameter(property = "canonical", alias = "canonical", defaultValue = "false")
+    private boolean canonical;
+
+    /**
+     * Whether to leave an existing output file untouched, including its modification time, when the newly generated
+     * content is identical. Outputs are always written to a temporary file first and atomically renamed.
+     */
+    @Parameter(property = "skipUnchanged", alias = "skipUnchanged", defaultValue = "true")
+    private boolean skipUnchanged;
+
+    /**
+     * Whether to write all converted schemas into a single bundle document instead of one file per schema. Named
+     * types are stored once under {@code definitions} and each source file gets an entry point under
+     * {@code x-entryPoints}, keyed by its relative path without the {@code .avsc} extension. The bundle is always
+     * regenerated from all sources; {@code incremental} is ignored. Every entry of {@code inputs} needs its own
+     * output directory.
+     */
+    @Parameter(property = "bundle", alias = "bundle", defaultValue = "false")
+    boolean bundle;
+
+    /**
+     * File name of the bundle document without extension, relative to {@code outputDirectory}. The extension of the
+     * output format is appended.
+     */
+    @Parameter(property = "bundleName", alias = "bundleName", defaultValue = "schemas.bundle")
+    private String bundleName;
+
+    /**
+     * Whether to store every distinct converted named type once, in a file named after the hash of its content below
+     * {@code objectsDirectory}. Per-schema outputs and stored types refer to stored types through {@code $ref}, so
+     * identical types of many schema versions are written and shipped once. Implies {@code useReferences} and
+     * disables {@code streaming}; cannot be combined with {@code bundle}.
+     */
+    @Parameter(property = "deduplicate", alias = "deduplicate", defaultValue = "false")
+    private boolean deduplicate;
+
+    /**
+     * Directory of the stored types of {@code deduplicate}, relative to {@code outputDirectory}. Also holds
+     * {@code index.json}, which maps the named types used by each output file to their hashes. Stored types no output
+     * uses anymore are deleted. Must not contain {@code outputDirectory} or overlap the input. Entries of
+     * {@code inputs} with the same output directory share its stored types.
+     */
+    @Parameter(property = "objectsDirectory", alias = "objectsDirectory", defaultValue = "objects")
+    private String objectsDirectory;
+
+    /**
+     * Whether to write an index next to the bundle that maps every definition and entry point to the byte offset and
+     * length of its schema within the bundle. Requires an uncompressed JSON output format.
+     */
+    @Parameter(property = "bundleIndex", alias = "bundleIndex", defaultValue = "false")
+    private boolean bundleIndex;
+
+    /**
+     * Encoding of the generated schemas: {@code pretty} or {@code compact} JSON ({@code .schema.json}), or the binary
+     * JSON encodings {@code smile} ({@code .schema.smile}) and {@code cbor} ({@code .schema.cbor}).
+     */
+    @Parameter(property = "outputFormat", alias = "outputFormat", defaultValue = "pretty")
+    private String outputFormat;
+
+    /**
+     * Whether to gzip every output file. {@code .gz} is appended to the file names.
+     */
+    @Parameter(property = "gzip", alias = "gzip", defaultValue = "false")
+    private boolean gzip;
+
+    /**
+     * How to handle schemas that cannot be parsed or converted: {@code failFast} stops at the first one,
+     * {@code collectAll} processes all schemas and then fails listing every failure, {@code warnOnly} only logs them.
+     * Defaults to {@code failFast}, and to {@code collectAll} for {@code validate-only}.
+     */
+    @Parameter(property = "failureMode", alias = "failureMode")
+    private String failureMode;
+
+    /**
+     * File to write build metrics to: phase times, counters and the slowest schemas. Written as CSV if the name ends
+     * with {@code .csv} and as JSON otherwise. No report is written if unset; a summary is always logged.
+     */
+    @Parameter(property = "metricsReport", alias = "metricsReport")
+    private File metricsReport;
+
+    /**
+     * Number of slowest schemas listed in the metrics summary and report.
+     */
+    @Parameter(property = "slowestSchemas", alias = "slowestSchemas", defaultValue = "5")
+    private int slowestSchemas;
+
+    @Parameter(defaultValue = "${plugin.version}", readonly = true)
+    private String pluginVersion;
 
+    BuildMetrics metrics;
+    private List<InputRoot> roots;
+    private SourceRoots sourceRoots;
+    private File stateFile;
+    private Pass pass;
+    private ContentStore store;
+    // Stores by objects directory, shared by inputs with the same output directory, and the outputs using them
+    private Map<Path, ContentStore> stores;
+    private Map<ContentStore, Set<String>> storedOutputs;
+    private OutputFormat format;
+    private FailureMode failures;
+    private JsonSchemaDraft schemaDraft;
+    private ObjectWriter writer;
+    private AvroToJsonSchemaConverter converter;
+    private StreamingSchemaWriter streamingWriter;
+    private ConversionCache conversionCache;
+
+    /**
+     * Result of converting one source. {@code json} is {@code null} when the output was already streamed to
+     * {@code outFile}; {@code unchanged} then tells whether the existing file was kept.
+     */
+    private record Conversion(SourceFile source, String content, Schema schema, byte[] json, File outFile,
+                              boolean unchanged, ContentStore.Split split) {
+    }
+
+    /**
+     * A source scheduled for conversion. {@code content} is {@code null} when the file has not been read yet and
+     * {@code schema} is {@code null} when it has not been parsed yet.
+     */
+    private record Job(SourceFile source, String content, Schema schema) {
+    }
+
+    /**
+     * State of one pass over all inputs: the failures so far and, when {@code sharedTypes} is set, the parse context
+     * shared by the inputs. Sources of earlier inputs are known by their URI, which never collides with a relative
+     * name of the current input. {@code kept} is set when the parse context was taken over from the previous pass.
+     */
+    private static final class Pass {
+        final Set<String> failures = new LinkedHashSet<>();
+        boolean kept;
+        Schema.Parser parser = new Schema.Parser();
+        final Map<String, Schema> parsed = new HashMap<>();
+        final Map<String, SourceFile> sources = new HashMap<>();
+        final List<SchemaGraph.Node> nodes = new ArrayList<>();
+        final Set<String> changedTypes = new HashSet<>();
+    }
+
+    @SuppressWarnings("try") // The resources are only held to be closed
     public void execute() throws MojoExecutionException {
-        if (input == null) {
+        prepare();
+        try (SourceRoots archives = sourceRoots;
+             StateDirectoryLock lock = incremental && !bundle && !dryRun() ? lockState() : null) {
+            for (InputRoot root : roots) {
+                select(root);
+                if (roots.size() > 1) getLog().info("Converting " + inputName() + " -> " + outputDirectory);
+                if (boundedMemory && input != null && input.isDirectory()) {
+                    processLazily();
+                    continue;
+                }
+                List<SourceFile> sources = discover();
+                if (maxFiles > 0 && sources.size() > maxFiles) {
+                    throw new MojoExecutionException("Found more than " + maxFiles + " schema files below " + inputName()
+                            + " (maxFiles); narrow the input or the includes");
+                }
+                if (bundle && !dryRun()) {
+                    processBundle(sources);
+                } else if (incremental && !dryRun()) {
+                    processIncrementally(sources, loadBuildState());
+                } else if (sharedTypes) {
+                    Map<String, String> contents = new HashMap<>();
+                    List<SchemaGraph.Node> nodes = new ArrayList<>(sources.size());
+                    List<SourceFile> scanned = new ArrayList<>(sources.size());
+                    for (SourceFile source : sources) {
+                        String content = read(source);
+                        SchemaGraph.Node node = scanChecked(source, content);
+                        if (node == null) continue;
+                        contents.put(source.relativeName(), content);
+                        nodes.add(node);
+                        scanned.add(source);
+                    }
+                    List<Job> jobs = parseShared(scanned, scanned, contents, graph(nodes));
+                    contents.clear();
+                    processFiles(jobs, c -> {
+                    });
+                    share(scanned, nodes);
+                } else {
+                    List<Job> jobs = new ArrayList<>(sources.size());
+                    for (SourceFile source : sources) jobs.add(new Job(source, null, null));
+                    processFiles(jobs, c -> {
+                    });
+                }
+                keepStored(sources);
+            }
+            finishStores();
+            for (String line : metrics.summary(slowestSchemas)) getLog().info(line);
+            if (metricsReport != null) metrics.writeReport(metricsReport.toPath(), slowestSchemas);
+            reportFailures();
+        } catch (IOException e) {
+            throw new MojoExecutionException("Conversion failed", e);
+        }
+    }
+
+    /**
+     * Validates the configuration and creates the converter.
+     */
+    void prepare() throws MojoExecutionException {
+        roots = new ArrayList<>();
+        if (inputs != null && !inputs.isEmpty()) {
+            for (InputRoot root : inputs) {
+                if ((root.input == null) == (root.classpathInput == null)) {
+                    throw new MojoExecutionException("Every entry of 'inputs' needs either an <input> or a <classpathInput>");
+                }
+                roots.add(new InputRoot(root.input, root.classpathInput,
+                        root.outputDirectory != null ? root.outputDirectory : outputDirectory));
+            }
+        } else if (input != null && classpathInput != null) {
+            throw new MojoExecutionException("Parameters 'input' and 'classpathInput' cannot be combined");
+        } else if (input != null || classpathInput != null) {
+            roots.add(new InputRoot(input, classpathInput, outputDirectory));
+        } else {
             throw new MojoExecutionException("Parameter 'input' is required. Use -Dinput or <input> configuration.");
         }
-        if (!outputDirectory.exists() && !outputDirectory.mkdirs()) {
-            throw new MojoExecutionException("Could not create output directory: " + outputDirectory);
+        Set<Path> bundleDirectories = new HashSet<>();
+        for (InputRoot root : roots) {
+            if (bundle && !bundleDirectories.add(root.outputDirectory.toPath().toAbsolutePath().normalize())) {
+                throw new MojoExecutionException("Parameter 'bundle' needs a separate output directory per entry of "
+                        + "'inputs', their bundles would overwrite each other: " + root.outputDirectory);
+            }
+            if (!dryRun() && !root.outputDirectory.exists() && !root.outputDirectory.mkdirs()) {
+                throw new MojoExecutionException("Could not create output directory: " + root.outputDirectory);
+            }
+            if (root.input != null && !root.input.exists()) {
+                throw new MojoExecutionException("Input path does not exist: " + root.input);
+            }
+        }
+        if (maxFiles < 0) {
+            throw new MojoExecutionException("Parameter 'maxFiles' must not be negative: " + maxFiles);
         }
-        if (!input.exists()) {
-            throw new MojoExecutionException("Input path does not exist: " + input);
+        if (parallelism < 0) {
+            throw new MojoExecutionException("Parameter 'parallelism' must not be negative: " + parallelism);
+        }
+        if (maxInFlight < 0) {
+            throw new MojoExecutionException("Parameter 'maxInFlight' must not be negative: " + maxInFlight);
+        }
+        if (boundedMemory && (sharedTypes || !dryRun() && (bundle || incremental || deduplicate))) {
+            throw new MojoExecutionException("Parameter 'boundedMemory' cannot be combined with 'sharedTypes', 'bundle', "
+                    + "'incremental' or 'deduplicate'");
         }
         try {
-            AvroToJsonSchemaConverter.setLog(getLog());
-            if (input.isDirectory()) {
-                processDirectory(input);
-            } else {
-                processFile(input, input.getName());
+            format = OutputFormat.parse(outputFormat);
+            schemaDraft = JsonSchemaDraft.parse(draft);
+            failures = failureMode != null ? FailureMode.parse(failureMode) : defaultFailureMode();
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+        if (bundle && deduplicate) {
+            throw new MojoExecutionException("Parameters 'bundle' and 'deduplicate' cannot be combined");
+        }
+        if (bundle && bundleIndex && (gzip || !format.isText())) {
+            throw new MojoExecutionException("Parameter 'bundleIndex' requires an uncompressed pretty or compact output format");
+        }
+        writer = format.writer(canonical);
+        converter = AvroToJsonSchemaConverter.builder()
+                .useReferences(useReferences)
+                .draft(schemaDraft)
+                .warningHandler(getLog()::warn)
+                // A cache holds on to converted schemas, which would defeat the bounded mode
+                .cache(conversionCache = boundedMemory ? null : cache())
+                .build();
+        streamingWriter = new StreamingSchemaWriter(converter);
+        metrics = new BuildMetrics();
+        pass = new Pass();
+        sourceRoots = new SourceRoots();
+        stores = new LinkedHashMap<>();
+        storedOutputs = new HashMap<>();
+        select(roots.get(0));
+    }
+
+    /**
+     * Makes {@code root} the input and output of the following discovery and conversion calls.
+     */
+    void select(InputRoot root) throws MojoExecutionException {
+        input = root.input;
+        classpathInput = root.classpathInput;
+        outputDirectory = root.outputDirectory;
+        if (deduplicate && !dryRun()) {
+            Path objects = new File(outputDirectory, objectsDirectory).toPath().toAbsolutePath().normalize();
+            Path output = outputDirectory.toPath().toAbsolutePath().normalize();
+            Path in = input != null ? input.toPath().toAbsolutePath().normalize() : null;
+            // Unused stored types are deleted from it, which must never hit outputs or sources
+            if (output.startsWith(objects) || in != null && (in.startsWith(objects) || objects.startsWith(in))) {
+                throw new MojoExecutionException("Parameter 'objectsDirectory' must neither contain the output directory "
+                        + "nor overlap the input: " + objects);
+            }
+            store = stores.get(objects);
+            if (store == null) {
+                store = new ContentStore(objects, writer, ".schema" + fileExtension(), gzip, converter.draft());
+                try {
+                    store.load();
+                } catch (IOException e) {
+                    // Only entries of outputs that are not regenerated get lost; a full build restores them
+                    getLog().warn("Ignoring unreadable index in " + store.directory() + ": " + e.getMessage());
+                }
+                stores.put(objects, store);
             }
+        }
+        if (inputs == null || inputs.isEmpty()) {
+            stateFile = buildStateFile;
+        } else {
+            // One state per input, so inputs never see each other's sources as deleted
+            String name = buildStateFile.getName();
+            if (name.endsWith(".json")) name = name.substring(0, name.length() - 5);
+            String key = BuildState.hash(inputKey()).substring(0, 12);
+            stateFile = new File(buildStateFile.getParentFile(), name + "-" + key + ".json");
+        }
+    }
+
+    /**
+     * Locks the build state directory, so parallel builds sharing it wait for each other.
+     */
+    StateDirectoryLock lockState() throws MojoExecutionException {
+        File directory = buildStateFile.getAbsoluteFile().getParentFile();
+        try {
+            return StateDirectoryLock.acquire(directory.toPath(), getLog());
         } catch (IOException e) {
-            throw new MojoExecutionException("Conversion failed", e);
+            throw new MojoExecutionException("Could not lock build state directory " + directory, e);
+        }
+    }
+
+    /**
+     * Starts a new pass over all inputs: failures recorded before are forgotten and archives opened before are closed.
+     * Named types parsed before are forgotten too, unless {@code keepTypes} is set: an incremental pass with
+     * {@code sharedTypes} then only parses the outdated sources again and reuses the types of all others.
+     */
+    void newPass(boolean keepTypes) throws IOException {
+        Pass previous = pass;
+        pass = new Pass();
+        if (keepTypes) {
+            pass.kept = true;
+            pass.parser = previous.parser;
+            pass.parsed.putAll(previous.parsed);
+        }
+        sourceRoots.close();
+    }
+
+    /**
+     * Returns the current input for messages.
+     */
+    String inputName() {
+        return input != null ? input.toString() : "classpath:" + classpathInput;
+    }
+
+    /**
+     * Returns what identifies the current input in the build state.
+     */
+    private String inputKey() {
+        return input != null ? input.getAbsolutePath() : "classpath:" + classpathInput;
+    }
+
+    /**
+     * Whether schemas are only parsed and converted, without writing outputs or build state.
+     */
+    boolean dryRun() {
+        return false;
+    }
+
+    /**
+     * Returns the cache of converted schemas, or {@code null} to convert every schema afresh. A single build converts
+     * every schema once, so only goals that convert the same schemas repeatedly use one.
+     */
+    ConversionCache cache() {
+        return null;
+    }
+
+    ConversionCache conversionCache() {
+        return conversionCache;
+    }
+
+    /**
+     * Whether schemas are written straight from the Avro schema; the cache, if any, is only used by the tree
+     * conversion.
+     */
+    private boolean streamed() {
+        return streaming && !canonical && conversionCache == null;
+    }
+
+    FailureMode defaultFailureMode() {
+        return FailureMode.FAIL_FAST;
+    }
+
+    FailureMode failures() {
+        return failures;
+    }
+
+    AvroToJsonSchemaConverter converter() {
+        return converter;
+    }
+
+    /**
+     * Called on the writing thread, in source order, for every schema that was converted or validated.
+     */
+    void converted(SourceFile source, Schema schema) {
+    }
+
+    /**
+     * Called for every source that failed and was skipped because the build does not fail fast.
+     */
+    void skipped(SourceFile source) {
+    }
+
+    /**
+     * Handles a schema that could not be parsed or converted according to the failure mode: rethrows it when failing
+     * fast, otherwise logs and records it.
+     */
+    private void failed(SourceFile source, Exception e) throws MojoExecutionException {
+        if (failures == FailureMode.FAIL_FAST) {
+            if (e instanceof MojoExecutionException mee) throw mee;
+            if (e instanceof RuntimeException re) throw re;
+            throw new MojoExecutionException("Failed to convert " + source.location(), e);
+        }
+        String message = e instanceof MojoExecutionException
+                ? e.getMessage() + (e.getCause() != null ? ": " + e.getCause().getMessage() : "")
+                : "Failed to convert " + source.location() + ": " + e;
+        if (!pass.failures.add(message)) return;
+        if (failures == FailureMode.WARN_ONLY) {
+            getLog().warn(message);
+        } else {
+            getLog().error(message);
         }
+        skipped(source);
     }
 
-    private void processDirectory(File dir) throws IOException, MojoExecutionException {
-        File[] files = dir.listFiles();
-        if (files == null) {
+    /**
+     * Fails the build if schemas failed in {@code collectAll} mode; only logs their number in {@code warnOnly} mode.
+     */
+    void reportFailures() throws MojoExecutionException {
+        if (pass.failures.isEmpty()) return;
+        String summary = pass.failures.size() + " schema(s) failed";
+        if (failures == FailureMode.WARN_ONLY) {
+            getLog().warn(summary + " and were skipped");
             return;
         }
-        for (File f : files) {
-            if (f.isDirectory() && recursive) {
-                processDirectory(f);
-            } else if (f.isFile() && f.getName().endsWith(".avsc")) {
-                processFile(f, relativize(input, f));
+        throw new MojoExecutionException(summary + ":\n  " + String.join("\n  ", pass.failures));
+    }
+
+    /**
+     * Collects the schema files below {@code input}, or in the archive or class path directories it denotes.
+     */
+    List<SourceFile> discover() throws IOException {
+        long start = System.nanoTime();
+        List<SourceFile> sources;
+        List<Path> scanRoots;
+        if (classpathInput != null) {
+            scanRoots = sourceRoots.classpath(getClass().getClassLoader(), classpathInput);
+            if (scanRoots.isEmpty()) {
+                throw new IOException("Class path resource " + classpathInput + " not found; add the artifact containing it to the plugin's dependencies");
+            }
+        } else if (input.isDirectory()) {
+            scanRoots = List.of(input.toPath());
+        } else if (SourceRoots.isArchive(input)) {
+            scanRoots = List.of(sourceRoots.archive(input.toPath()));
+        } else {
+            scanRoots = List.of();
+        }
+        if (!scanRoots.isEmpty()) {
+            SourceScanner scanner = new SourceScanner(includes, excludes, recursive, followSymlinks, maxFiles,
+                    getLog()::warn);
+            Map<String, SourceFile> found = new HashMap<>();
+            for (Path scanRoot : scanRoots) {
+                for (SourceFile source : scanner.scan(scanRoot)) {
+                    SourceFile first = found.putIfAbsent(source.relativeName(), source);
+                    if (first != null) getLog().warn("Skipping " + source.location() + ", already found in " + first.location());
+                }
             }
+            sources = new ArrayList<>(found.values());
+            // The walk follows the directory listing order, which differs between file systems
+            sources.sort(Comparator.comparing(SourceFile::relativeName));
+        } else {
+            sources = List.of(SourceScanner.file(input));
+        }
+        metrics.time(BuildMetrics.Phase.SCAN, null, System.nanoTime() - start);
+        metrics.add(BuildMetrics.Counter.SCANNED, sources.size());
+        return sources;
+    }
+
+    /**
+     * Converts the schema files below {@code input} while they are discovered. The scan, the conversions and the
+     * writer are connected through bounded queues, so each waits for the next stage and only the files in flight are
+     * held in memory.
+     */
+    private void processLazily() throws IOException, MojoExecutionException {
+        SourceScanner scanner = new SourceScanner(includes, excludes, recursive, followSymlinks, maxFiles,
+                getLog()::warn);
+        boolean[] exceeded = new boolean[1];
+        long[] taken = new long[1];
+        try (SourceQueue queue = new SourceQueue(scanner, input.toPath(), inFlight(threads()),
+                nanos -> metrics.time(BuildMetrics.Phase.SCAN, null, nanos))) {
+            Iterator<Job> jobs = new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    if (!queue.hasNext()) return false;
+                    // Stop before the first file beyond the limit; the scan only finds one more
+                    exceeded[0] = maxFiles > 0 && taken[0] == maxFiles;
+                    return !exceeded[0];
+                }
+
+                @Override
+                public Job next() {
+                    taken[0]++;
+                    metrics.add(BuildMetrics.Counter.SCANNED, 1);
+                    return new Job(queue.next(), null, null);
+                }
+            };
+            processFiles(jobs, Integer.MAX_VALUE, c -> {
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (exceeded[0]) {
+            throw new MojoExecutionException("Found more than " + maxFiles + " schema files below " + inputName()
+                    + " (maxFiles); narrow the input or the includes");
         }
     }
 
-    private String relativize(File base, File file) throws IOException {
-        String rel = file.getCanonicalFile().toPath().toString();
+    BuildState loadBuildState() {
+        return BuildState.load(stateFile, configurationFingerprint(), getLog());
+    }
+
+    /**
+     * Reconverts the sources that changed since {@code state} was recorded together with their dependents, removes
+     * outputs of deleted sources and saves the updated state.
+     *
+     * @return the state to compare the next build against
+     */
+    BuildState processIncrementally(List<SourceFile> sources, BuildState state) throws IOException, MojoExecutionException {
+        Map<String, String> changed = new HashMap<>();
+        Map<String, SchemaGraph.Node> nodes = new LinkedHashMap<>();
+        Set<String> changedTypes = new HashSet<>();
+        Set<String> seen = new HashSet<>();
+
+        for (SourceFile source : sources) {
+            seen.add(source.relativeName());
+            long size = source.size();
+            long lastModified = source.lastModified();
+            BuildState.Entry entry = state.previous(source.relativeName());
+            boolean outputExists = entry != null && new File(outputDirectory, entry.output()).isFile();
+            if (outputExists && entry.isFresh(size, lastModified)) {
+                state.record(source.relativeName(), entry);
+                nodes.put(source.relativeName(), node(source, entry));
+                continue;
+            }
+            String content = read(source);
+            if (outputExists && entry.hash().equals(BuildState.hash(content))) {
+                state.record(source.relativeName(), entry.touch(size, lastModified));
+                nodes.put(source.relativeName(), node(source, entry));
+                continue;
+            }
+            SchemaGraph.Node node = scanChecked(source, content);
+            // A failing source keeps its previous output and is retried by the next build
+            if (node == null) continue;
+            if (entry != null) changedTypes.addAll(entry.defines());
+            changedTypes.addAll(node.defines());
+            nodes.put(source.relativeName(), node);
+            changed.put(source.relativeName(), content);
+        }
+
+        int removed = 0;
+        for (String previousSource : state.previousSources()) {
+            if (seen.contains(previousSource)) continue;
+            BuildState.Entry entry = state.previous(previousSource);
+            changedTypes.addAll(entry.defines());
+            if (BuildState.deleteOutput(outputDirectory, entry)) {
+                getLog().info("Removed output of deleted schema " + previousSource + ": " + entry.output());
+            }
+            removed++;
+            metrics.add(BuildMetrics.Counter.REMOVED, 1);
+        }
+
+        // Reconvert unchanged schemas that use a named type defined by a changed or deleted schema, also of an
+        // earlier input
+        if (sharedTypes) changedTypes.addAll(pass.changedTypes);
+        SchemaGraph graph = graph(nodes.values());
+        Set<String> dependents = graph.dependents(changedTypes);
+        List<SourceFile> outdated = new ArrayList<>();
+        for (SourceFile source : sources) {
+            if (changed.containsKey(source.relativeName()) || dependents.contains(source.relativeName())) {
+                outdated.add(source);
+            }
+        }
+        List<Job> jobs;
+        if (sharedTypes) {
+            if (pass.kept) forgetOutdated(sources, outdated, graph, changedTypes);
+            jobs = parseShared(sources, outdated, new HashMap<>(changed), graph);
+        } else {
+            jobs = new ArrayList<>(outdated.size());
+            for (SourceFile source : outdated) jobs.add(new Job(source, changed.get(source.relativeName()), null));
+        }
+        processFiles(jobs, c -> state.record(c.source().relativeName(), describe(c, graph.node(c.source().relativeName()))));
+        if (sharedTypes) {
+            share(sources, nodes.values());
+            pass.changedTypes.addAll(changedTypes);
+        }
+
+        state.save();
+        metrics.add(BuildMetrics.Counter.UP_TO_DATE, sources.size() - outdated.size());
+        getLog().info("Incremental build: " + changed.size() + " changed, " + (outdated.size() - changed.size())
+                + " dependent, " + (sources.size() - outdated.size()) + " up to date, " + removed + " removed");
+        return state.next();
+    }
+
+    void processBundle(List<SourceFile> sources) throws IOException, MojoExecutionException {
+        if (incremental) {
+            getLog().info("Incremental builds are not supported for bundles, converting all schemas");
+        }
+        Map<String, String> contents = new HashMap<>();
+        List<SchemaGraph.Node> nodes = new ArrayList<>(sources.size());
+        List<SourceFile> scanned = new ArrayList<>(sources.size());
+        for (SourceFile source : sources) {
+            String content = read(source);
+            if (sharedTypes) {
+                SchemaGraph.Node node = scanChecked(source, content);
+                if (node == null) continue;
+                nodes.add(node);
+            }
+            contents.put(source.relativeName(), content);
+            scanned.add(source);
+        }
+        List<Job> jobs;
+        if (sharedTypes) {
+            jobs = parseShared(scanned, scanned, contents, graph(nodes));
+            share(scanned, nodes);
+        } else {
+            jobs = new ArrayList<>(scanned.size());
+            for (SourceFile source : scanned) {
+                String content = contents.get(source.relativeName());
+                Schema schema = parseChecked(new Schema.Parser(), source, content);
+                if (schema != null) jobs.add(new Job(source, content, schema));
+            }
+        }
+        Map<String, Schema> schemas = new LinkedHashMap<>();
+        for (Job job : jobs) schemas.put(entryPoint(job.source().relativeName()), job.schema());
+        long start = System.nanoTime();
+        Map<String, Object> document = converter.convertBundle(schemas);
+        metrics.time(BuildMetrics.Phase.CONVERT, null, System.nanoTime() - start);
+
+        File bundleFile = new File(outputDirectory, bundleName + fileExtension());
+        Map<String, Map<String, BundleWriter.Span>> index = new LinkedHashMap<>();
+        long[] serializeNanos = new long[1];
+        start = System.nanoTime();
+        boolean written = OutputFiles.write(bundleFile.toPath(), out -> {
+            long serializeStart = System.nanoTime();
+            CountingOutputStream counting = new CountingOutputStream(out);
+            index.putAll(BundleWriter.write(document, encode(counting), writer, gen -> new BuildMetrics.CountingGenerator(gen, metrics)));
+            metrics.add(BuildMetrics.Counter.BYTES_WRITTEN, counting.count());
+            serializeNanos[0] = System.nanoTime() - serializeStart;
+        }, skipUnchanged);
+        metrics.time(BuildMetrics.Phase.SERIALIZE, null, serializeNanos[0]);
+        metrics.time(BuildMetrics.Phase.WRITE, null, System.nanoTime() - start - serializeNanos[0]);
+        metrics.add(written ? BuildMetrics.Counter.CONVERTED : BuildMetrics.Counter.UNCHANGED, schemas.size());
+        getLog().info("Bundled " + schemas.size() + " schema(s) -> " + bundleFile + (written ? "" : " (unchanged)"));
+        if (bundleIndex) {
+            File indexFile = new File(outputDirectory, bundleName + ".index.json");
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("bundle", bundleFile.getName());
+            for (Map.Entry<String, Map<String, BundleWriter.Span>> section : index.entrySet()) {
+                Map<String, long[]> spans = new LinkedHashMap<>();
+                section.getValue().forEach((name, span) -> spans.put(name, new long[]{span.offset(), span.length()}));
+                json.put(section.getKey(), spans);
+            }
+            OutputFiles.write(indexFile.toPath(), new ObjectMapper().writeValueAsBytes(json), skipUnchanged);
+        }
+    }
+
+    /**
+     * Records the outputs of the selected input as users of its content-addressed store.
+     */
+    void keepStored(List<SourceFile> sources) {
+        if (store == null) return;
+        Set<String> outputs = storedOutputs.computeIfAbsent(store, s -> new HashSet<>());
+        for (SourceFile source : sources) outputs.add(outputName(source.relativeName()));
+    }
+
+    /**
+     * Writes the index of every content-addressed store and removes stored types that no output of any input uses
+     * anymore. Inputs sharing an output directory share its store, so it is only finished once all were converted.
+     */
+    void finishStores() throws IOException {
+        for (ContentStore shared : stores.values()) {
+            Set<String> outputs = storedOutputs.getOrDefault(shared, Set.of());
+            int deleted = shared.finish(outputs);
+            if (deleted > 0) getLog().info("Removed " + deleted + " unused stored type(s) from " + shared.directory());
+        }
+        storedOutputs.clear();
+    }
+
+    private static String entryPoint(String relativeName) {
+        return SchemaSources.baseName(relativeName.replace(File.separatorChar, '/'));
+    }
+
+    private SchemaGraph.Node node(SourceFile source, BuildState.Entry entry) {
+        return new SchemaGraph.Node(source.relativeName(), new LinkedHashSet<>(entry.defines()),
+                new LinkedHashSet<>(entry.references()));
+    }
+
+    private SchemaGraph.Node scan(SourceFile source, String content) throws MojoExecutionException {
+        try {
+            return SchemaGraph.scan(source.relativeName(), SchemaSources.schemaJson(source, content));
+        } catch (Exception e) {
+            throw new MojoExecutionException("Failed to parse Avro schema: " + source.location(), e);
+        }
+    }
+
+    /**
+     * Like {@link #scan}, but returns {@code null} for a failing source unless failing fast.
+     */
+    private SchemaGraph.Node scanChecked(SourceFile source, String content) throws MojoExecutionException {
         try {
-            rel = base.getCanonicalFile().toPath().relativize(file.getCanonicalFile().toPath()).toString();
-        } catch (Exception ignored) {
+            return scan(source, content);
+        } catch (MojoExecutionException e) {
+            failed(source, e);
+            return null;
         }
-        return rel;
     }
 
-    private void processFile(File avscFile, String relativeName) throws IOException, MojoExecutionException {
-        String content = Files.readString(avscFile.toPath());
-        org.apache.avro.Schema avroSchema;
+    /**
+     * Like {@link #parse}, but returns {@code null} for a failing source unless failing fast.
+     */
+    private Schema parseChecked(Schema.Parser parser, SourceFile source, String content) throws MojoExecutionException {
+        try {
+            return parse(parser, source, content);
+        } catch (MojoExecutionException e) {
+            failed(source, e);
+            return null;
+        }
+    }
+
+    /**
+     * Parses the given sources and every source defining a named type they depend on into one shared
+     * {@link Schema.Parser}, in dependency order, so each named type is parsed exactly once.
+     *
+     * @param contents already read file contents by relative name; missing ones are read and added
+     */
+    private List<Job> parseShared(List<SourceFile> sources, List<SourceFile> toConvert, Map<String, String> contents,
+                                  SchemaGraph graph) throws IOException, MojoExecutionException {
+        Map<String, SourceFile> byName = new HashMap<>();
+        for (SourceFile source : sources) byName.put(source.relativeName(), source);
+        List<String> order;
         try {
-            avroSchema = new Schema.Parser().parse(content);
+            order = graph.parseOrder(toConvert.stream().map(SourceFile::relativeName).toList());
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+        for (String name : order) {
+            SourceFile source = byName.get(name);
+            if (source == null) {
+                // A source of an earlier input that defines a type used here
+                source = pass.sources.get(name);
+                if (!pass.parsed.containsKey(name)) pass.parsed.put(name, parseShared(graph, name, source, read(source)));
+                continue;
+            }
+            // Kept from the previous pass, see newPass
+            if (pass.parsed.containsKey(key(source))) continue;
+            String content = contents.get(name);
+            if (content == null) {
+                content = read(source);
+                contents.put(name, content);
+            }
+            pass.parsed.put(key(source), parseShared(graph, name, source, content));
+        }
+        List<Job> jobs = new ArrayList<>(toConvert.size());
+        for (SourceFile source : toConvert) {
+            // Failed sources are recorded without a schema
+            Schema schema = pass.parsed.get(key(source));
+            if (schema != null) jobs.add(new Job(source, contents.get(source.relativeName()), schema));
+        }
+        return jobs;
+    }
+
+    /**
+     * Parses a source into the shared parser. Returns {@code null} for a failing source unless failing fast.
+     */
+    private Schema parseShared(SchemaGraph graph, String id, SourceFile source, String content) throws MojoExecutionException {
+        try {
+            return parse(pass.parser, source, content);
+        } catch (MojoExecutionException e) {
+            failed(source, e);
+            // The parser keeps the types of a failed file half defined, which breaks every later parse
+            forget(graph.node(id).defines());
+            return null;
+        }
+    }
+
+    /**
+     * Drops the named types of outdated and deleted sources, and the schemas of sources that no longer exist, from a
+     * parse context kept from the previous pass, so that only the outdated sources are parsed again.
+     */
+    private void forgetOutdated(List<SourceFile> sources, List<SourceFile> outdated, SchemaGraph graph,
+                                Set<String> changedTypes) {
+        Set<String> stale = new HashSet<>(changedTypes);
+        for (SourceFile source : outdated) {
+            stale.addAll(graph.node(source.relativeName()).defines());
+            pass.parsed.remove(key(source));
+        }
+        forget(stale);
+        Set<String> current = new HashSet<>();
+        for (SourceFile source : sources) current.add(key(source));
+        pass.parsed.keySet().retainAll(current);
+    }
+
+    /**
+     * Removes the given named types from the shared parser, so they can be defined again.
+     */
+    private void forget(Collection<String> types) {
+        Map<String, Schema> known = pass.parser.getTypes();
+        if (!known.keySet().removeAll(types)) return;
+        pass.parser = new Schema.Parser().addTypes(known.values());
+    }
+
+    /**
+     * Returns the dependency graph of the given sources together with the sources of earlier inputs of this pass.
+     */
+    private SchemaGraph graph(Collection<SchemaGraph.Node> nodes) {
+        if (pass.nodes.isEmpty()) return new SchemaGraph(nodes);
+        List<SchemaGraph.Node> all = new ArrayList<>(pass.nodes);
+        all.addAll(nodes);
+        return new SchemaGraph(all);
+    }
+
+    /**
+     * Makes the named types of the current input available to the inputs converted after it.
+     */
+    private void share(List<SourceFile> sources, Collection<SchemaGraph.Node> nodes) {
+        Map<String, SourceFile> byName = new HashMap<>();
+        for (SourceFile source : sources) byName.put(source.relativeName(), source);
+        for (SchemaGraph.Node node : nodes) {
+            SourceFile source = byName.get(node.id());
+            pass.sources.put(key(source), source);
+            pass.nodes.add(new SchemaGraph.Node(key(source), node.defines(), node.references()));
+        }
+    }
+
+    private static String key(SourceFile source) {
+        return source.path().toUri().toString();
+    }
+
+    private BuildState.Entry describe(Conversion conversion, SchemaGraph.Node node) {
+        SourceFile source = conversion.source();
+        return new BuildState.Entry(BuildState.hash(conversion.content()), source.size(), source.lastModified(),
+                outputName(source.relativeName()),
+                new ArrayList<>(node.defines()), new ArrayList<>(node.references()));
+    }
+
+    private String configurationFingerprint() {
+        return BuildState.hash(String.join("|", String.valueOf(pluginVersion), inputKey(),
+                outputDirectory.getAbsolutePath(), String.valueOf(recursive), String.valueOf(useReferences),
+                schemaDraft.name(), String.valueOf(sharedTypes), format.name(), String.valueOf(canonical), String.valueOf(gzip),
+                deduplicate ? objectsDirectory : "-"));
+    }
+
+    /**
+     * Parses and converts the given jobs on a bounded worker pool and writes the results on the calling thread in
+     * job order, so output and log ordering do not depend on scheduling. Streamed outputs are written by the workers
+     * and only reported in job order.
+     */
+    private void processFiles(List<Job> jobs, Consumer<Conversion> onWritten) throws IOException, MojoExecutionException {
+        // Hand out and forget every job, so its content and schema can be collected once it is written
+        Iterator<Job> pending = new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < jobs.size();
+            }
+
+            @Override
+            public Job next() {
+                return jobs.set(next++, null);
+            }
+        };
+        processFiles(pending, jobs.size(), onWritten);
+    }
+
+    /**
+     * Like {@link #processFiles(List, Consumer)} for jobs that are only known as they are iterated.
+     *
+     * @param count the number of jobs if known, to size the worker pool
+     */
+    private void processFiles(Iterator<Job> pending, int count, Consumer<Conversion> onWritten) throws IOException, MojoExecutionException {
+        if (!pending.hasNext()) return;
+        int threads = Math.min(threads(), count);
+        if (threads <= 1) {
+            while (pending.hasNext()) {
+                Job job = pending.next();
+                Conversion conversion;
+                try {
+                    conversion = convert(job);
+                } catch (MojoExecutionException | RuntimeException e) {
+                    failed(job.source(), e);
+                    continue;
+                }
+                onWritten.accept(write(conversion));
+            }
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Deque<Map.Entry<Job, Future<Conversion>>> inFlight = new ArrayDeque<>();
+        int window = inFlight(threads);
+        try {
+            while (!inFlight.isEmpty() || pending.hasNext()) {
+                // Keep a bounded window of conversions ahead of the writer
+                while (inFlight.size() < window && pending.hasNext()) {
+                    Job job = pending.next();
+                    inFlight.add(Map.entry(job, executor.submit(() -> convert(job))));
+                }
+                Map.Entry<Job, Future<Conversion>> next = inFlight.poll();
+                Conversion conversion;
+                try {
+                    conversion = await(next.getValue());
+                } catch (MojoExecutionException | RuntimeException e) {
+                    failed(next.getKey().source(), e);
+                    continue;
+                }
+                onWritten.accept(write(conversion));
+            }
+        } finally {
+            for (Map.Entry<Job, Future<Conversion>> entry : inFlight) entry.getValue().cancel(true);
+            executor.shutdownNow();
+        }
+    }
+
+    int threads() {
+        return parallelism == 0 ? Runtime.getRuntime().availableProcessors() : parallelism;
+    }
+
+    private int inFlight(int threads) {
+        return maxInFlight > 0 ? maxInFlight : threads * 2;
+    }
+
+    private Conversion await(Future<Conversion> future) throws IOException, MojoExecutionException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Conversion interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof MojoExecutionException mee) throw mee;
+            if (cause instanceof IOException ioe) throw ioe;
+            if (cause instanceof RuntimeException re) throw re;
+            throw new MojoExecutionException("Conversion failed", cause);
+        }
+    }
+
+    private String outputName(String relativeName) {
+        return SchemaSources.baseName(relativeName) + ".schema" + fileExtension();
+    }
+
+    private String fileExtension() {
+        return format.extension() + (gzip ? ".gz" : "");
+    }
+
+    private OutputStream encode(OutputStream out) throws IOException {
+        return gzip ? new GZIPOutputStream(out, 8192) : out;
+    }
+
+    private Conversion convert(Job job) throws IOException, MojoExecutionException {
+        String name = job.source().relativeName();
+        String content = job.content() != null ? job.content() : read(job.source());
+        Schema avroSchema = job.schema() != null ? job.schema() : parse(new Schema.Parser(), job.source(), content);
+        File outFile = new File(outputDirectory, outputName(name));
+        if (dryRun()) {
+            long start = System.nanoTime();
+            try (JsonGenerator gen = generator(OutputStream.nullOutputStream())) {
+                if (streamed()) {
+                    streamingWriter.write(avroSchema, gen);
+                } else {
+                    writer.writeValue(gen, converter.convert(avroSchema));
+                }
+            }
+            metrics.time(BuildMetrics.Phase.CONVERT, name, System.nanoTime() - start);
+            return new Conversion(job.source(), content, avroSchema, null, outFile, false, null);
+        }
+        if (streamed() && store == null) {
+            long[] convertNanos = new long[1];
+            long start = System.nanoTime();
+            boolean written = OutputFiles.write(outFile.toPath(), out -> {
+                long convertStart = System.nanoTime();
+                CountingOutputStream counting = new CountingOutputStream(out);
+                try (JsonGenerator gen = generator(counting)) {
+                    streamingWriter.write(avroSchema, gen);
+                }
+                metrics.add(BuildMetrics.Counter.BYTES_WRITTEN, counting.count());
+                convertNanos[0] = System.nanoTime() - convertStart;
+            }, skipUnchanged);
+            metrics.time(BuildMetrics.Phase.CONVERT, name, convertNanos[0]);
+            metrics.time(BuildMetrics.Phase.WRITE, name, System.nanoTime() - start - convertNanos[0]);
+            return new Conversion(job.source(), content, avroSchema, null, outFile, !written, null);
+        }
+        long start = System.nanoTime();
+        Map<String, Object> jsonSchema;
+        ContentStore.Split split = null;
+        if (store != null) {
+            String prefix = outFile.getAbsoluteFile().getParentFile().toPath()
+                    .relativize(store.directory().toAbsolutePath()).toString().replace(File.separatorChar, '/');
+            split = store.split(converter.convertBundle(Map.of(name, avroSchema)), name, prefix.isEmpty() ? "" : prefix + "/");
+            jsonSchema = split.document();
+        } else {
+            jsonSchema = converter.convert(avroSchema);
+        }
+        long converted = System.nanoTime();
+        metrics.time(BuildMetrics.Phase.CONVERT, name, converted - start);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (JsonGenerator gen = generator(buffer)) {
+            writer.writeValue(gen, jsonSchema);
+        }
+        byte[] json = buffer.toByteArray();
+        metrics.time(BuildMetrics.Phase.SERIALIZE, name, System.nanoTime() - converted);
+        return new Conversion(job.source(), content, avroSchema, json, outFile, false, split);
+    }
+
+    private JsonGenerator generator(OutputStream out) throws IOException {
+        return new BuildMetrics.CountingGenerator(writer.createGenerator(encode(out)), metrics);
+    }
+
+    private String read(SourceFile source) throws IOException {
+        long start = System.nanoTime();
+        byte[] bytes = Files.readAllBytes(source.path());
+        metrics.add(BuildMetrics.Counter.BYTES_READ, bytes.length);
+        String content = new String(bytes, StandardCharsets.UTF_8);
+        metrics.time(BuildMetrics.Phase.READ, source.relativeName(), System.nanoTime() - start);
+        return content;
+    }
+
+    private Schema parse(Schema.Parser parser, SourceFile source, String content) throws MojoExecutionException {
+        long start = System.nanoTime();
+        try {
+            return parser.parse(SchemaSources.schemaJson(source, content));
         } catch (Exception e) {
-            throw new MojoExecutionException("Failed to parse Avro schema: " + avscFile, e);
+            throw new MojoExecutionException("Failed to parse Avro schema: " + source.location(), e);
+        } finally {
+            metrics.time(BuildMetrics.Phase.PARSE, source.relativeName(), System.nanoTime() - start);
         }
-        Map<String, Object> jsonSchema = AvroToJsonSchemaConverter.convert(avroSchema);
+    }
 
-        // Determine output file path
-        String outName = relativeName;
-        if (outName.endsWith(".avsc")) outName = outName.substring(0, outName.length() - 5);
-        File outFile = new File(outputDirectory, outName + ".schema.json");
-        File parent = outFile.getParentFile();
-        if (!parent.exists() && !parent.mkdirs()) {
-            throw new MojoExecutionException("Could not create directory: " + parent);
+    private Conversion write(Conversion conversion) throws IOException {
+        converted(conversion.source(), conversion.schema());
+        if (dryRun()) {
+            metrics.add(BuildMetrics.Counter.CONVERTED, 1);
+            getLog().info("Validated " + conversion.source().location());
+            return conversion;
+        }
+        File outFile = conversion.outFile();
+        boolean unchanged = conversion.unchanged();
+        if (conversion.json() != null) {
+            long start = System.nanoTime();
+            if (conversion.split() != null) {
+                store.write(outputName(conversion.source().relativeName()), conversion.split());
+            }
+            unchanged = !OutputFiles.write(outFile.toPath(), conversion.json(), skipUnchanged);
+            metrics.time(BuildMetrics.Phase.WRITE, conversion.source().relativeName(), System.nanoTime() - start);
+            metrics.add(BuildMetrics.Counter.BYTES_WRITTEN, conversion.json().length);
         }
-        String json = new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(jsonSchema);
-        Files.writeString(outFile.toPath(), json);
-        getLog().info("Converted " + avscFile + " -> " + outFile);
+        metrics.add(unchanged ? BuildMetrics.Counter.UNCHANGED : BuildMetrics.Counter.CONVERTED, 1);
+        getLog().info("Converted " + conversion.source().location() + " -> " + outFile + (unchanged ? " (unchanged)" : ""));
+        return conversion;
     }
 }
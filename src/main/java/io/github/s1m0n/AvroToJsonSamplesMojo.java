@@ -0,0 +1,206 @@
+package io.github.s1m0n;
+
+/*
+ * Copyright 2025 Simon Marksteiner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileReader;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.MappingIterator;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+/**
+ * Converts all schemas like {@code validate-only} and validates sample data against them, e.g. JSON payloads captured
+ * from a topic. Samples of {@code shop/order.avsc} are the files below {@code <samplesDirectory>/shop/order/}: JSON files
+ * holding one or more values ({@code .json}, {@code .jsonl}, {@code .ndjson}), which must be valid against the
+ * generated JSON Schema, and Avro data files ({@code .avro}), which must be readable with the schema. Sample files are
+ * validated in parallel with checks compiled from the Avro schema, and the throughput per schema is logged. A schema
+ * with samples must not exist under the same path in several {@code inputs}.
+ */
+@Mojo(name = "validate-samples", defaultPhase = LifecyclePhase.TEST, requiresDependencyResolution = ResolutionScope.NONE, threadSafe = true)
+public class AvroToJsonSamplesMojo extends AvroToJsonMojo {
+
+    private static final ObjectReader READER = new ObjectMapper().readerFor(JsonNode.class);
+
+    /**
+     * Directory holding a subdirectory of samples per schema, named like the schema's path without {@code .avsc}.
+     */
+    @Parameter(property = "samplesDirectory", alias = "samplesDirectory", defaultValue = "${project.basedir}/src/test/samples")
+    private File samplesDirectory;
+
+    private final Map<String, Schema> schemas = new LinkedHashMap<>();
+    // The inputs holding a schema of each name; samples of a name held by several inputs cannot be told apart
+    private final Map<String, Set<String>> inputsOf = new HashMap<>();
+
+    /**
+     * Outcome of validating one sample file.
+     */
+    private record FileResult(String schema, long samples, long bytes, long nanos, List<String> violations) {
+    }
+
+    @Override
+    boolean dryRun() {
+        return true;
+    }
+
+    @Override
+    FailureMode defaultFailureMode() {
+        return FailureMode.COLLECT_ALL;
+    }
+
+    @Override
+    void converted(SourceFile source, Schema schema) {
+        String name = SchemaSources.baseName(source.relativeName());
+        schemas.put(name, schema);
+        inputsOf.computeIfAbsent(name, k -> new LinkedHashSet<>()).add(inputName());
+    }
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        super.execute();
+        if (!samplesDirectory.isDirectory()) {
+            getLog().info("No samples directory " + samplesDirectory);
+            return;
+        }
+        List<FileResult> results;
+        try {
+            results = validateSamples();
+        } catch (IOException e) {
+            throw new MojoExecutionException("Sample validation failed", e);
+        }
+        report(results);
+    }
+
+    private List<FileResult> validateSamples() throws IOException, MojoExecutionException {
+        List<Callable<FileResult>> tasks = new ArrayList<>();
+        for (Map.Entry<String, Schema> e : schemas.entrySet()) {
+            Path directory = samplesDirectory.toPath().resolve(e.getKey());
+            if (!Files.isDirectory(directory)) continue;
+            Set<String> inputs = inputsOf.get(e.getKey());
+            if (inputs.size() > 1) {
+                throw new MojoExecutionException("Samples in " + directory + " are ambiguous, schema " + e.getKey()
+                        + " exists in several inputs: " + String.join(", ", inputs));
+            }
+            SampleValidator validator = SampleValidator.compile(e.getValue(), converter());
+            for (Path file : sampleFiles(directory)) {
+                tasks.add(() -> validate(e.getKey(), e.getValue(), validator, file));
+            }
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads(), tasks.size())));
+        try {
+            List<FileResult> results = new ArrayList<>(tasks.size());
+            for (Future<FileResult> future : executor.invokeAll(tasks)) results.add(future.get());
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Sample validation interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioe) throw ioe;
+            throw new MojoExecutionException("Sample validation failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<Path> sampleFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.endsWith(".json") || name.endsWith(".jsonl") || name.endsWith(".ndjson")
+                                || name.endsWith(".avro");
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static FileResult validate(String name, Schema schema, SampleValidator validator, Path file) throws IOException {
+        long start = System.nanoTime();
+        List<String> violations = new ArrayList<>();
+        long samples = 0;
+        if (file.getFileName().toString().endsWith(".avro")) {
+            // Reading with the schema as reader schema fails on data it cannot resolve
+            try (DataFileReader<Object> reader = new DataFileReader<>(file.toFile(), new GenericDatumReader<>(null, schema))) {
+                while (reader.hasNext()) {
+                    reader.next();
+                    samples++;
+                }
+            } catch (IOException | RuntimeException e) {
+                violations.add(file + " record " + (samples + 1) + ": " + e.getMessage());
+                samples++;
+            }
+        } else {
+            try (MappingIterator<JsonNode> values = READER.readValues(file.toFile())) {
+                while (values.hasNext()) {
+                    String violation = validator.validate(values.next());
+                    samples++;
+                    if (violation != null) violations.add(file + " sample " + samples + " at " + violation);
+                }
+            } catch (JacksonException e) {
+                violations.add(file + " sample " + (samples + 1) + ": malformed JSON: " + e.getOriginalMessage());
+                samples++;
+            }
+        }
+        return new FileResult(name, samples, Files.size(file), System.nanoTime() - start, violations);
+    }
+
+    private void report(List<FileResult> results) throws MojoExecutionException {
+        Map<String, long[]> totals = new LinkedHashMap<>();
+        List<String> violations = new ArrayList<>();
+        for (FileResult result : results) {
+            long[] total = totals.computeIfAbsent(result.schema(), k -> new long[4]);
+            total[0] += result.samples();
+            total[1] += result.violations().size();
+            total[2] += result.bytes();
+            total[3] += result.nanos();
+            violations.addAll(result.violations());
+        }
+        long samples = 0;
+        for (Map.Entry<String, long[]> e : totals.entrySet()) {
+            long[] total = e.getValue();
+            samples += total[0];
+            double seconds = Math.max(total[3], 1) / 1e9;
+            getLog().info(String.format(Locale.ROOT, "%s: %d sample(s), %d invalid, %d KB in %d ms, %.0f samples/s, %.1f MB/s",
+                    e.getKey(), total[0], total[1], total[2] / 1024, total[3] / 1_000_000,
+                    total[0] / seconds, total[2] / seconds / (1024 * 1024)));
+        }
+        getLog().info("Validated " + samples + " sample(s) of " + totals.size() + " schema(s)");
+        if (violations.isEmpty()) return;
+        String summary = violations.size() + " sample(s) invalid";
+        if (failures() == FailureMode.WARN_ONLY) {
+            for (String violation : violations) getLog().warn(violation);
+            getLog().warn(summary);
+            return;
+        }
+        throw new MojoExecutionException(summary + ":\n  " + String.join("\n  ", violations));
+    }
+}
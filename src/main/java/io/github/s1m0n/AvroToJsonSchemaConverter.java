@@ -16,243 +16,565 @@ package io.github.s1m0n;
  * limitations under the License.
  */
 
-import org.apache.avro.JsonProperties;
 import org.apache.avro.LogicalType;
 import org.apache.avro.Schema;
-import org.apache.maven.plugin.logging.Log;
-import tools.jackson.databind.JsonNode;
 
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
-public class AvroToJsonSchemaConverter {
+/**
+ * Converts Avro schemas to JSON Schema. Instances are immutable and can be shared between threads; create them with
+ * {@link #builder()}.
+ */
+public final class AvroToJsonSchemaConverter {
+
+    static final String ENTRY_POINTS = "x-entryPoints";
+
+    private static final Set<Schema.Type> CONTAINER_TYPES =
+            EnumSet.of(Schema.Type.RECORD, Schema.Type.ARRAY, Schema.Type.MAP, Schema.Type.UNION);
+
+    private final Consumer<String> warningHandler;
+    private final boolean useReferences;
+    private final JsonSchemaDraft draft;
+    private final Map<Schema.Type, TypeMapper> typeMappers;
+    private final Map<Schema.Type, Map<String, TypeMapper>> logicalTypeMappers;
+    private final ConversionCache cache;
 
-    private static Log LOG;
+    /**
+     * Creates a converter with the default settings and mappers.
+     */
+    public AvroToJsonSchemaConverter() {
+        this(builder());
+    }
+
+    private AvroToJsonSchemaConverter(Builder builder) {
+        this.warningHandler = builder.warningHandler;
+        this.useReferences = builder.useReferences;
+        this.draft = builder.draft;
+        this.typeMappers = new EnumMap<>(builder.typeMappers);
+        this.logicalTypeMappers = new EnumMap<>(Schema.Type.class);
+        builder.logicalTypeMappers.forEach((type, mappers) -> logicalTypeMappers.put(type, Map.copyOf(mappers)));
+        this.cache = builder.cache;
+    }
 
-    static void setLog(Log log) {
-        LOG = log;
+    public static Builder builder() {
+        return new Builder();
     }
 
-    static Map<String, Object> convert(Schema schema) {
+    /**
+     * Configures a {@link AvroToJsonSchemaConverter}. Starts out with the default mappers of all primitive, enum, fixed
+     * and logical types; registering a mapper replaces the one for the same type or logical type.
+     */
+    public static final class Builder {
+        private boolean useReferences;
+        private JsonSchemaDraft draft = JsonSchemaDraft.DRAFT_07;
+        private ConversionCache cache;
+        private Consumer<String> warningHandler = warning -> {
+        };
+        private final Map<Schema.Type, TypeMapper> typeMappers = new EnumMap<>(Schema.Type.class);
+        private final Map<Schema.Type, Map<String, TypeMapper>> logicalTypeMappers = new EnumMap<>(Schema.Type.class);
+
+        private Builder() {
+            typeMapper(Schema.Type.NULL, (schema, node) -> node.put("type", "null"));
+            typeMapper(Schema.Type.BOOLEAN, (schema, node) -> node.put("type", "boolean"));
+            typeMapper(Schema.Type.INT, format("integer", "int32"));
+            typeMapper(Schema.Type.LONG, (schema, node) -> node.put("type", "integer"));
+            typeMapper(Schema.Type.FLOAT, format("number", "float"));
+            typeMapper(Schema.Type.DOUBLE, format("number", "double"));
+            typeMapper(Schema.Type.BYTES, AvroToJsonSchemaConverter::putBase64);
+            typeMapper(Schema.Type.STRING, (schema, node) -> node.put("type", "string"));
+            typeMapper(Schema.Type.ENUM, (schema, node) -> {
+                node.put("type", "string");
+                node.put("enum", schema.getEnumSymbols());
+            });
+            typeMapper(Schema.Type.FIXED, AvroToJsonSchemaConverter::putBase64);
+            logicalTypeMapper(Schema.Type.INT, "date", format("string", "date"));
+            logicalTypeMapper(Schema.Type.INT, "time-millis", format("string", "time"));
+            for (String timestamp : List.of("timestamp-millis", "timestamp-micros", "local-timestamp-millis", "local-timestamp-micros")) {
+                logicalTypeMapper(Schema.Type.LONG, timestamp, format("string", "date-time"));
+            }
+            logicalTypeMapper(Schema.Type.LONG, "time-micros", format("string", "time"));
+            logicalTypeMapper(Schema.Type.BYTES, "decimal", AvroToJsonSchemaConverter::putDecimal);
+            logicalTypeMapper(Schema.Type.STRING, "uuid", format("string", "uuid"));
+            logicalTypeMapper(Schema.Type.FIXED, "decimal", AvroToJsonSchemaConverter::putDecimal);
+            logicalTypeMapper(Schema.Type.FIXED, "duration", format("string", "duration"));
+        }
+
+        private static TypeMapper format(String type, String format) {
+            return (schema, node) -> {
+                node.put("type", type);
+                node.put("format", format);
+            };
+        }
+
+        /**
+         * Whether every named type (record, enum, fixed) is emitted once under {@code definitions} and referenced
+         * through {@code $ref}; otherwise named types are inlined and only recursive ones are referenced.
+         */
+        public Builder useReferences(boolean useReferences) {
+            this.useReferences = useReferences;
+            return this;
+        }
+
+        /**
+         * Sets the JSON Schema draft of the generated documents; defaults to draft-07.
+         */
+        public Builder draft(JsonSchemaDraft draft) {
+            this.draft = Objects.requireNonNull(draft, "draft");
+            return this;
+        }
+
+        /**
+         * Receives warnings about parts of a schema that could not be converted, e.g. unsupported default values.
+         */
+        public Builder warningHandler(Consumer<String> warningHandler) {
+            this.warningHandler = Objects.requireNonNull(warningHandler, "warningHandler");
+            return this;
+        }
+
+        /**
+         * Caches converted documents and named types in the given cache. {@link #convert} then returns immutable
+         * results.
+         */
+        public Builder cache(ConversionCache cache) {
+            this.cache = cache;
+            return this;
+        }
+
+        /**
+         * Sets the mapper of a primitive, enum or fixed type, used when no logical type mapper applies.
+         *
+         * @throws IllegalArgumentException for records, arrays, maps and unions, which are always converted structurally
+         */
+        public Builder typeMapper(Schema.Type type, TypeMapper mapper) {
+            if (CONTAINER_TYPES.contains(type)) {
+                throw new IllegalArgumentException("No mapper can be registered for " + type + " schemas");
+            }
+            typeMappers.put(type, Objects.requireNonNull(mapper, "mapper"));
+            return this;
+        }
+
+        /**
+         * Sets the mapper of a logical type on the given Avro type.
+         *
+         * @throws IllegalArgumentException for records, arrays, maps and unions
+         */
+        public Builder logicalTypeMapper(Schema.Type type, String logicalType, TypeMapper mapper) {
+            if (CONTAINER_TYPES.contains(type)) {
+                throw new IllegalArgumentException("No mapper can be registered for " + type + " schemas");
+            }
+            logicalTypeMappers.computeIfAbsent(type, t -> new HashMap<>())
+                    .put(Objects.requireNonNull(logicalType, "logicalType"), Objects.requireNonNull(mapper, "mapper"));
+            return this;
+        }
+
+        /**
+         * Sets the mapper of a logical type on every primitive, enum and fixed type.
+         */
+        public Builder logicalTypeMapper(String logicalType, TypeMapper mapper) {
+            for (Schema.Type type : Schema.Type.values()) {
+                if (!CONTAINER_TYPES.contains(type)) logicalTypeMapper(type, logicalType, mapper);
+            }
+            return this;
+        }
+
+        public AvroToJsonSchemaConverter build() {
+            return new AvroToJsonSchemaConverter(this);
+        }
+    }
+
+    /**
+     * State of a single {@link #convert} or {@link #convertBundle} call. Each named type is converted at most once
+     * per call.
+     */
+    private static final class Context {
+        final String rootName;
+        final boolean useReferences;
+        final Map<String, Object> definitions = new LinkedHashMap<>();
+        final Map<String, Schema> definedSchemas = new HashMap<>();
+        final Map<String, Map<String, Object>> converted = new HashMap<>();
+        final Set<String> inProgress = new HashSet<>();
+        // Fingerprints of the document's schemas when the converter has a cache
+        final ConversionCache.Fingerprints fingerprints;
+        // Number of $ref nodes emitted so far; a named type without any is independent of where it is used
+        int references;
+
+        Context(String rootName, boolean useReferences, ConversionCache.Fingerprints fingerprints) {
+            this.rootName = rootName;
+            this.useReferences = useReferences;
+            this.fingerprints = fingerprints;
+        }
+    }
+
+    /**
+     * Converts a schema into a standalone JSON Schema document, a tree of maps, lists and scalars. The result is
+     * mutable unless the converter has a {@link ConversionCache}.
+     */
+    public Map<String, Object> convert(Schema schema) {
+        if (cache == null) return convertDocument(schema, null);
+        ConversionCache.Fingerprints fingerprints = new ConversionCache.Fingerprints();
+        return cache.get(new ConversionCache.Key(this, fingerprints.of(schema), true),
+                () -> convertDocument(schema, fingerprints));
+    }
+
+    private Map<String, Object> convertDocument(Schema schema, ConversionCache.Fingerprints fingerprints) {
         Map<String, Object> root = new LinkedHashMap<>();
-        root.put("$schema", "http://json-schema.org/draft-07/schema#");
-        Map<String, Object> def = toJsonSchema(schema);
+        root.put("$schema", draft.uri());
+        Context ctx = new Context(isNamed(schema) ? schema.getFullName() : null, useReferences, fingerprints);
+        Map<String, Object> def = isNamed(schema) ? convertNamed(schema, ctx) : toJsonSchema(schema, ctx);
+        if (ctx.rootName != null && draft.anchor(ctx.rootName) != null) root.put("$anchor", draft.anchor(ctx.rootName));
         root.putAll(def);
+        if (!ctx.definitions.isEmpty()) root.put(draft.definitions(), ctx.definitions);
+        return root;
+    }
+
+    /**
+     * Converts several schemas into one document. Every named type is emitted once under the definitions and
+     * each schema gets an entry point under {@code x-entryPoints}, keyed like the given map. If schemas parsed
+     * separately define the same name differently, the first definition is kept.
+     */
+    public Map<String, Object> convertBundle(Map<String, Schema> schemas) {
+        Context ctx = new Context(null, true, null);
+        Map<String, Object> entryPoints = new LinkedHashMap<>();
+        for (Map.Entry<String, Schema> e : schemas.entrySet()) {
+            entryPoints.put(e.getKey(), toJsonSchema(e.getValue(), ctx));
+        }
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("$schema", draft.uri());
+        root.put(draft.definitions(), ctx.definitions);
+        root.put(ENTRY_POINTS, entryPoints);
         return root;
     }
 
-    private static Map<String, Object> toJsonSchema(Schema schema) {
+    boolean useReferences() {
+        return useReferences;
+    }
+
+    JsonSchemaDraft draft() {
+        return draft;
+    }
+
+    static boolean isNamed(Schema schema) {
+        Schema.Type type = schema.getType();
+        return type == Schema.Type.RECORD || type == Schema.Type.ENUM || type == Schema.Type.FIXED;
+    }
+
+    /**
+     * Converts a schema at some position of the document. Nested schemas are converted through an explicit stack of
+     * {@link Frame}s instead of recursion, so the nesting depth of a schema is not limited by the thread stack.
+     */
+    private Map<String, Object> toJsonSchema(Schema schema, Context ctx) {
+        Deque<Frame> stack = new ArrayDeque<>();
+        return run(stack, enter(schema, ctx, stack), ctx);
+    }
+
+    private Map<String, Object> convertNamed(Schema schema, Context ctx) {
+        Deque<Frame> stack = new ArrayDeque<>();
+        pushNamed(schema, ctx, stack, converted -> converted);
+        return run(stack, null, ctx);
+    }
+
+    /**
+     * Resumes the frame on top of the stack with the conversion of the schema it asked for last, until the bottom
+     * frame is done.
+     *
+     * @param result the conversion to hand to the top frame, or {@code null} if that frame has not started yet
+     */
+    private Map<String, Object> run(Deque<Frame> stack, Map<String, Object> result, Context ctx) {
+        while (!stack.isEmpty()) {
+            Frame frame = stack.peek();
+            Schema next = frame.resume(result);
+            if (next != null) {
+                result = enter(next, ctx, stack);
+            } else {
+                stack.pop();
+                result = frame.result;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Starts the conversion of a schema: returns it right away if it becomes a {@code $ref} or a named type that was
+     * already converted, otherwise pushes the frames converting it and returns {@code null}.
+     */
+    private Map<String, Object> enter(Schema schema, Context ctx, Deque<Frame> stack) {
+        if (!isNamed(schema)) {
+            stack.push(new NodeFrame(schema));
+            return null;
+        }
+        String name = schema.getFullName();
+        if (name.equals(ctx.rootName)) {
+            ctx.references++;
+            return ref("#");
+        }
+        if (ctx.useReferences) {
+            Schema defined = ctx.definedSchemas.putIfAbsent(name, schema);
+            if (defined == null) {
+                // Reserve the slot first so definitions keep first-encounter order and recursive uses see it
+                ctx.definitions.put(name, Collections.emptyMap());
+                pushNamed(schema, ctx, stack, converted -> {
+                    ctx.definitions.put(name, definition(name, converted));
+                    ctx.references++;
+                    return ref(draft.reference(name));
+                });
+                return null;
+            } else if (defined != schema && !defined.equals(schema)) {
+                warningHandler.accept("Conflicting definitions of named type " + name + "; keeping the first one");
+            }
+            ctx.references++;
+            return ref(draft.reference(name));
+        }
+        if (ctx.inProgress.contains(name)) {
+            // Recursive use of a type that is still being converted; its definition is registered once done
+            ctx.definitions.putIfAbsent(name, Collections.emptyMap());
+            ctx.references++;
+            return ref(draft.reference(name));
+        }
+        Map<String, Object> converted = ctx.converted.get(name);
+        if (converted != null) return new LinkedHashMap<>(converted);
+        if (cache == null) {
+            pushNamed(schema, ctx, stack, c -> inlined(name, c, ctx));
+            return null;
+        }
+        // Inline mode: a named type is only cached if it does not refer to any type outside of itself
+        ConversionCache.Key key = new ConversionCache.Key(this, ctx.fingerprints.of(schema), false);
+        Map<String, Object> cached = cache.getIfPresent(key);
+        if (cached != null) return inlined(name, cached, ctx);
+        int references = ctx.references;
+        pushNamed(schema, ctx, stack, c -> inlined(name, ctx.references == references ? cache.put(key, c) : c, ctx));
+        return null;
+    }
+
+    private Map<String, Object> inlined(String name, Map<String, Object> converted, Context ctx) {
+        ctx.converted.put(name, converted);
+        if (ctx.definitions.containsKey(name)) ctx.definitions.put(name, definition(name, converted));
+        // Callers add field level keys to the returned node, so the cached one must not be handed out
+        return new LinkedHashMap<>(converted);
+    }
+
+    private void pushNamed(Schema schema, Context ctx, Deque<Frame> stack, UnaryOperator<Map<String, Object>> finish) {
+        ctx.inProgress.add(schema.getFullName());
+        stack.push(new NamedFrame(schema.getFullName(), ctx, finish));
+        stack.push(new NodeFrame(schema));
+    }
+
+    /**
+     * Returns the entry of a named type under the definitions, which starts with its {@code $anchor} if the draft
+     * has anchors.
+     */
+    private Map<String, Object> definition(String name, Map<String, Object> converted) {
+        String anchor = draft.anchor(name);
+        if (anchor == null) return converted;
         Map<String, Object> node = new LinkedHashMap<>();
-        // Add description from Avro schema doc when present
-        if (schema.getDoc() != null && !schema.getDoc().isEmpty()) {
-            node.put("description", schema.getDoc());
+        node.put("$anchor", anchor);
+        node.putAll(converted);
+        return node;
+    }
+
+    private static Map<String, Object> ref(String target) {
+        Map<String, Object> node = new LinkedHashMap<>();
+        node.put("$ref", target);
+        return node;
+    }
+
+    /**
+     * A pending conversion on the work stack.
+     */
+    private abstract static class Frame {
+        Map<String, Object> result;
+
+        /**
+         * Continues the conversion with the schema this frame asked for last, converted.
+         *
+         * @param converted the converted schema, or {@code null} on the first call
+         * @return the next schema to convert, or {@code null} once {@link #result} is set
+         */
+        abstract Schema resume(Map<String, Object> converted);
+    }
+
+    /**
+     * Finishes a named type once the {@link NodeFrame} above it is done.
+     */
+    private static final class NamedFrame extends Frame {
+        private final String name;
+        private final Context ctx;
+        private final UnaryOperator<Map<String, Object>> finish;
+
+        NamedFrame(String name, Context ctx, UnaryOperator<Map<String, Object>> finish) {
+            this.name = name;
+            this.ctx = ctx;
+            this.finish = finish;
         }
-        switch (schema.getType()) {
-            case NULL:
-                node.put("type", "null");
-                break;
-            case BOOLEAN:
-                node.put("type", "boolean");
-                break;
-            case INT:
-                if (isLogical(schema, "date")) {
-                    node.put("type", "string");
-                    node.put("format", "date");
-                } else if (isLogical(schema, "time-millis")) {
-                    node.put("type", "string");
-                    node.put("format", "time");
-                } else {
-                    node.put("type", "integer");
-                    node.put("format", "int32");
-                }
-                break;
-            case LONG:
-                if (isLogical(schema, "timestamp-millis") || isLogical(schema, "timestamp-micros")
-                        || isLogical(schema, "local-timestamp-millis") || isLogical(schema, "local-timestamp-micros")) {
-                    node.put("type", "string");
-                    node.put("format", "date-time");
-                } else if (isLogical(schema, "time-micros")) {
-                    node.put("type", "string");
-                    node.put("format", "time");
-                } else {
-                    node.put("type", "integer");
-                }
-                break;
-            case FLOAT:
-                node.put("type", "number");
-                node.put("format", "float");
-                break;
-            case DOUBLE:
-                node.put("type", "number");
-                node.put("format", "double");
-                break;
-            case BYTES:
-                if (isLogical(schema, "decimal")) {
-                    convertDecimal(schema, node);
-                } else {
-                    node.put("type", "string");
-                    node.put("contentEncoding", "base64");
-                }
-                break;
-            case STRING:
-                if (isLogical(schema, "uuid")) {
-                    node.put("type", "string");
-                    node.put("format", "uuid");
-                } else {
-                    node.put("type", "string");
-                }
-                break;
-            case ENUM:
-                node.put("type", "string");
-                node.put("enum", schema.getEnumSymbols());
-                break;
-            case FIXED:
-                if (isLogical(schema, "decimal")) {
-                    convertDecimal(schema, node);
-                } else if (isLogical(schema, "duration")) {
-                    node.put("type", "string");
-                    node.put("format", "duration");
-                } else {
-                    node.put("type", "string");
-                    node.put("contentEncoding", "base64");
-                }
-                break;
-            case ARRAY:
-                node.put("type", "array");
-                node.put("items", toJsonSchema(schema.getElementType()));
-                break;
-            case MAP:
-                node.put("type", "object");
-                node.put("additionalProperties", toJsonSchema(schema.getValueType()));
-                break;
-            case RECORD:
-                node.put("type", "object");
-                Map<String, Object> props = new LinkedHashMap<>();
-                List<String> required = new ArrayList<>();
-                for (Schema.Field f : schema.getFields()) {
-                    // Do not unwrap nullable; pass full schema so JSON Schema includes null when applicable
-                    Map<String, Object> propSchema = toJsonSchema(f.schema());
-                    // Add field description from Avro field doc when present
-                    if (f.doc() != null && !f.doc().isEmpty()) {
-                        propSchema.put("description", f.doc());
+
+        @Override
+        Schema resume(Map<String, Object> converted) {
+            ctx.inProgress.remove(name);
+            result = finish.apply(converted);
+            return null;
+        }
+    }
+
+    /**
+     * Builds the node of a single schema, asking for the schemas it contains one at a time.
+     */
+    private final class NodeFrame extends Frame {
+        private final Schema schema;
+        private final Map<String, Object> node = new LinkedHashMap<>();
+        // Record: index of the field being converted; union: index of the next anyOf branch, or -1 for the base
+        private int index;
+        private Map<String, Object> props;
+        private List<String> required;
+        private List<Schema> nonNullTypes;
+        private boolean nullable;
+        private List<Map<String, Object>> anyOf;
+
+        NodeFrame(Schema schema) {
+            this.schema = schema;
+            // Add description from Avro schema doc when present
+            if (schema.getDoc() != null && !schema.getDoc().isEmpty()) {
+                node.put("description", schema.getDoc());
+            }
+        }
+
+        @Override
+        Schema resume(Map<String, Object> converted) {
+            switch (schema.getType()) {
+                case ARRAY:
+                    if (converted == null) {
+                        node.put("type", "array");
+                        return schema.getElementType();
+                    }
+                    node.put("items", converted);
+                    break;
+                case MAP:
+                    if (converted == null) {
+                        node.put("type", "object");
+                        return schema.getValueType();
                     }
-                    // Add default value if present in Avro field
-                    if (f.hasDefaultValue()) {
-                        Object defaultVal = getDefaultValue(f);
-                        propSchema.put("default", defaultVal);
+                    node.put("additionalProperties", converted);
+                    break;
+                case RECORD:
+                    List<Schema.Field> fields = schema.getFields();
+                    if (converted == null) {
+                        node.put("type", "object");
+                        props = new LinkedHashMap<>();
+                        required = new ArrayList<>();
+                    } else {
+                        // Do not unwrap nullable; the full schema is converted so JSON Schema includes null when applicable
+                        Schema.Field f = fields.get(index++);
+                        // Add field description from Avro field doc when present
+                        if (f.doc() != null && !f.doc().isEmpty()) {
+                            converted.put("description", f.doc());
+                        }
+                        // Add default value if present in Avro field
+                        if (f.hasDefaultValue()) {
+                            converted.put("default", getDefaultValue(f));
+                        }
+                        props.put(f.name(), converted);
+                        if (!isNullable(f.schema())) {
+                            required.add(f.name());
+                        }
                     }
-                    props.put(f.name(), propSchema);
-                    if (!isNullable(f.schema())) {
-                        required.add(f.name());
+                    if (index < fields.size()) return fields.get(index).schema();
+                    node.put("properties", props);
+                    if (!required.isEmpty()) node.put("required", required);
+                    break;
+                case UNION:
+                    if (converted == null) {
+                        List<Schema> types = schema.getTypes();
+                        nullable = types.stream().anyMatch(t -> t.getType() == Schema.Type.NULL);
+                        nonNullTypes = new ArrayList<>();
+                        for (Schema t : types) if (t.getType() != Schema.Type.NULL) nonNullTypes.add(t);
+                        anyOf = new ArrayList<>();
+                        // If this is a simple nullable union with a single non-null type, prefer JSON Schema "type" array
+                        if (nullable && nonNullTypes.size() == 1) {
+                            index = -1;
+                            return nonNullTypes.getFirst();
+                        }
+                    } else if (index < 0) {
+                        index = 0;
+                        if (converted.get("type") instanceof String s) {
+                            node.putAll(converted);
+                            node.put("type", Arrays.asList(s, "null"));
+                            break;
+                        }
+                        // If base type is not a simple type string, fall back to the anyOf representation, which
+                        // converts it again
+                    } else {
+                        anyOf.add(converted);
                     }
-                }
-                node.put("properties", props);
-                if (!required.isEmpty()) node.put("required", required);
-                break;
-            case UNION:
-                List<Schema> types = schema.getTypes();
-                boolean nullable = types.stream().anyMatch(t -> t.getType() == Schema.Type.NULL);
-                List<Schema> nonNullTypes = new ArrayList<>();
-                for (Schema t : types) if (t.getType() != Schema.Type.NULL) nonNullTypes.add(t);
-
-                // If this is a simple nullable union with a single non-null type, prefer JSON Schema "type" array
-                if (nullable && nonNullTypes.size() == 1) {
-                    Map<String, Object> base = toJsonSchema(nonNullTypes.getFirst());
-                    Object baseType = base.get("type");
-                    if (baseType instanceof String s) {
-                        node.putAll(base);
-                        node.put("type", Arrays.asList(s, "null"));
-                        return node;
+                    if (index < nonNullTypes.size()) return nonNullTypes.get(index++);
+                    if (nullable) {
+                        anyOf.add(Collections.singletonMap("type", "null"));
                     }
-                    // If base type is not a simple type string, fall back to anyOf representation below
-                }
-
-                List<Map<String, Object>> anyOf = new ArrayList<>();
-                for (Schema t : types) {
-                    if (t.getType() == Schema.Type.NULL) continue;
-                    anyOf.add(toJsonSchema(t));
-                }
-                if (nullable) {
-                    anyOf.add(Collections.singletonMap("type", "null"));
-                }
-                node.put("anyOf", anyOf);
-                break;
-            default:
-                node.put("type", "object");
+                    node.put("anyOf", anyOf);
+                    break;
+                default:
+                    putScalarAttributes(schema, node);
+            }
+            result = node;
+            return null;
         }
-        return node;
     }
 
-    private static Object getDefaultValue(Schema.Field f) {
+    /**
+     * Puts the keywords of a schema that does not contain other schemas (primitives, enum and fixed, including their
+     * logical types) into {@code node}, using the mapper registered for its logical type or else for its type.
+     */
+    void putScalarAttributes(Schema schema, Map<String, Object> node) {
+        String logicalType = logicalTypeName(schema);
+        TypeMapper mapper = null;
+        if (logicalType != null) {
+            Map<String, TypeMapper> mappers = logicalTypeMappers.get(schema.getType());
+            if (mappers != null) mapper = mappers.get(logicalType);
+        }
+        if (mapper == null) mapper = typeMappers.get(schema.getType());
+        if (mapper != null) {
+            mapper.map(schema, node);
+        } else {
+            node.put("type", "object");
+        }
+    }
+
+    private static String logicalTypeName(Schema schema) {
+        LogicalType logicalType = schema.getLogicalType();
+        if (logicalType != null) return logicalType.getName();
+        // as of Avro 1.11.4, decimal is a logical type, but not fully implemented as a logical type on fixed
+        return schema.getType() == Schema.Type.FIXED ? schema.getProp("logicalType") : null;
+    }
+
+    private static void putBase64(Schema schema, Map<String, Object> node) {
+        node.put("type", "string");
+        node.put("contentEncoding", "base64");
+    }
+
+    /**
+     * Returns the default value of a field as plain Java values (maps, lists, strings, numbers, booleans and
+     * {@code null}), exactly as written in the Avro schema; numbers keep their parsed representation.
+     */
+    Object getDefaultValue(Schema.Field f) {
         try {
             if (!f.hasDefaultValue()) {
                 return null;
             }
-            return convertDefaultValue(f.defaultVal());
+            return AvroDefaultValues.toJava(f);
         } catch (Exception e) {
             // In case of unexpected default structure, skip adding default
-            if (LOG != null) {
-                LOG.warn("Failed to convert default value for field '" + f.name() + "': " + e.getMessage());
-            }
+            warningHandler.accept("Failed to convert default value for field '" + f.name() + "': " + e.getMessage());
             return null;
         }
     }
 
-    private static Object convertDefaultValue(Object defaultValue) {
-        if (defaultValue == null) return null;
-        if (defaultValue == JsonProperties.NULL_VALUE) return null;
-        if (defaultValue instanceof JsonNode jn) {
-            return jsonNodeToJava(jn);
-        }
-        if (defaultValue instanceof CharSequence cs) return cs.toString();
-        if (defaultValue instanceof Number || defaultValue instanceof Boolean) return defaultValue;
-        if (defaultValue instanceof Map<?, ?> m) return m;
-        if (defaultValue instanceof List<?> l) return l;
-        // Fallback to string representation
-        return defaultValue.toString();
-    }
-
-    private static Object jsonNodeToJava(JsonNode node) {
-        if (node == null || node.isNull()) return null;
-        if (node.isString()) return node.asString();
-        if (node.isBoolean()) return node.asBoolean();
-        if (node.isInt() || node.isLong()) return node.longValue();
-        if (node.isFloat() || node.isDouble() || node.isBigDecimal()) return node.doubleValue();
-        if (node.isBigInteger()) return node.bigIntegerValue();
-        if (node.isArray()) {
-            List<Object> list = new ArrayList<>(node.size());
-            for (JsonNode el : node) list.add(jsonNodeToJava(el));
-            return list;
-        }
-        if (node.isObject()) {
-            Map<String, Object> map = new LinkedHashMap<>();
-            for (Map.Entry<String, JsonNode> entry : node.properties()) {
-                map.put(entry.getKey(), jsonNodeToJava(entry.getValue()));
-            }
-            return map;
-        }
-        // numbers fallback
-        if (node.isNumber()) return node.numberValue();
-        return node.asString();
-    }
-
-    private static boolean isNullable(Schema schema) {
+    boolean isNullable(Schema schema) {
         if (schema.getType() == Schema.Type.UNION) {
             for (Schema t : schema.getTypes()) if (t.getType() == Schema.Type.NULL) return true;
         }
         return false;
     }
 
-    private static boolean isLogical(Schema schema, String logical) {
-        // as of Avro 1.11.4, decimal is a logical type, but not fully implemented as a logical type
-        Object logicalType = schema.getObjectProp("logicalType");
-        if (schema.getType() == Schema.Type.FIXED && logicalType != null && logicalType.equals(logical))
-            return true;
-
-        LogicalType lt = schema.getLogicalType();
-        return lt != null && logical.equals(lt.getName());
-    }
-
-    private static void convertDecimal(Schema schema, Map<String, Object> node) {
+    private static void putDecimal(Schema schema, Map<String, Object> node) {
         node.put("type", "string");
         try {
             String precision = schema.getObjectProp("precision") != null ? schema.getObjectProp("precision").toString() : null;
@@ -0,0 +1,41 @@
+package io.github.s1m0n;
+
+/*
+ * Copyright 2025 Simon Marksteiner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+/**
+ * Parses and converts all schemas without writing any file, e.g. as a cheap pre-commit check of the whole schema
+ * tree. Takes the same configuration as {@code avsc-to-json}; {@code bundle}, {@code incremental} and
+ * {@code deduplicate} are ignored, and {@code failureMode} defaults to {@code collectAll}, so every invalid schema is
+ * reported at once.
+ */
+@Mojo(name = "validate-only", defaultPhase = LifecyclePhase.VALIDATE, requiresDependencyResolution = ResolutionScope.NONE, threadSafe = true)
+public class AvroToJsonValidateMojo extends AvroToJsonMojo {
+
+    @Override
+    boolean dryRun() {
+        return true;
+    }
+
+    @Override
+    FailureMode defaultFailureMode() {
+        return FailureMode.COLLECT_ALL;
+    }
+}
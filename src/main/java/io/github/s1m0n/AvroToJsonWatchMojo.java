@@ -0,0 +1,123 @@
+package io.github.s1m0n;
+
+/*
+ * Copyright 2025 Simon Marksteiner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Converts all schemas once and then keeps running, reconverting schemas as soon as they are saved. Only changed
+ * files and the files depending on their named types are read and reconverted; the build state and, with
+ * {@code sharedTypes}, the parsed named types stay in memory between updates. Takes the same configuration as
+ * {@code avsc-to-json}. Stop it with Ctrl+C.
+ */
+@Mojo(name = "watch", requiresDependencyResolution = ResolutionScope.NONE, threadSafe = true)
+public class AvroToJsonWatchMojo extends AvroToJsonMojo {
+
+    private static final int CACHE_ENTRIES = 10_000;
+    private static final long CACHE_WEIGHT = 1_000_000;
+
+    /**
+     * Milliseconds without further file events to wait before reconverting, so that one save is handled once.
+     */
+    @Parameter(property = "watchQuietPeriod", alias = "watchQuietPeriod", defaultValue = "50")
+    private long watchQuietPeriod;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        if (inputs != null && !inputs.isEmpty()) {
+            throw new MojoExecutionException("The watch goal converts a single 'input'; 'inputs' is not supported");
+        }
+        if (classpathInput != null) {
+            throw new MojoExecutionException("The watch goal needs an 'input' on disk; 'classpathInput' is not supported");
+        }
+        prepare();
+        Path root = (input.isDirectory() ? input : input.getAbsoluteFile().getParentFile()).toPath();
+        Path output = outputDirectory.getAbsoluteFile().toPath();
+        BuildState state = loadBuildState();
+        try (SourceWatcher watcher = new SourceWatcher(root, input.isDirectory() && recursive)) {
+            boolean first = true;
+            while (!Thread.currentThread().isInterrupted()) {
+                long start = System.nanoTime();
+                try {
+                    state = update(state);
+                    getLog().info("Updated in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+                } catch (MojoExecutionException e) {
+                    // Keep watching, the schema is usually fixed with the next save
+                    getLog().error(e.getCause() != null ? e.getMessage() + ": " + e.getCause().getMessage() : e.getMessage());
+                }
+                if (first) {
+                    getLog().info("Watching " + input + " for changes, press Ctrl+C to stop");
+                    first = false;
+                }
+                Set<Path> changed;
+                do {
+                    changed = watcher.awaitChanges(Long.MAX_VALUE, watchQuietPeriod);
+                } while (changed.stream().noneMatch(path -> isRelevant(path, output)));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new MojoExecutionException("Watching " + input + " failed", e);
+        }
+    }
+
+    /**
+     * Keeps converted named types between updates, so types of unchanged files are not converted again for the
+     * outdated files using them. Schemas are then always converted through the JSON tree, also with
+     * {@code streaming}.
+     */
+    @Override
+    ConversionCache cache() {
+        return new ConversionCache(CACHE_ENTRIES, CACHE_WEIGHT);
+    }
+
+    private BuildState update(BuildState state) throws IOException, MojoExecutionException {
+        metrics = new BuildMetrics();
+        // A bundle is converted from all sources anyway
+        newPass(!bundle);
+        if (bundle) {
+            processBundle(discover());
+            reportFailures();
+            return state;
+        }
+        StateDirectoryLock lock = lockState();
+        try {
+            List<SourceFile> sources = discover();
+            BuildState next = processIncrementally(sources, state);
+            keepStored(sources);
+            finishStores();
+            reportFailures();
+            return next;
+        } finally {
+            lock.close();
+        }
+    }
+
+    private boolean isRelevant(Path path, Path output) {
+        if (path.toAbsolutePath().startsWith(output)) return false;
+        // Any other change below a directory input may match the includes; an update without changes is cheap
+        return input.isDirectory() || path.getFileName().equals(input.toPath().getFileName());
+    }
+}
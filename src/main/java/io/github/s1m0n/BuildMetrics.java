@@ -0,0 +1,216 @@
+package io.github.s1m0n;
+
+/*
+ * Copyright 2025 Simon Marksteiner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.util.JsonGeneratorDelegate;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timers and counters of one build. Phase times are summed over all worker threads; per schema times are the sum of
+ * the phases spent on that schema. Safe to update from several threads.
+ */
+final class BuildMetrics {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    enum Phase {
+        /** Discovering source files. */
+        SCAN,
+        /** Reading source files. */
+        READ,
+        /** Parsing Avro schemas. */
+        PARSE,
+        /** Converting to JSON Schema; includes serialization when streaming. */
+        CONVERT,
+        /** Serializing the converted JSON tree. */
+        SERIALIZE,
+        /** Writing, comparing and renaming output files. */
+        WRITE
+    }
+
+    enum Counter {
+        SCANNED, CONVERTED, UP_TO_DATE, UNCHANGED, REMOVED, BYTES_READ, BYTES_WRITTEN, NODES
+    }
+
+    private final long start = System.nanoTime();
+    private final LongAdder[] phases = adders(Phase.values().length);
+    private final LongAdder[] counters = adders(Counter.values().length);
+    private final Map<String, Long> schemas = new ConcurrentHashMap<>();
+
+    private static LongAdder[] adders(int size) {
+        LongAdder[] adders = new LongAdder[size];
+        for (int i = 0; i < size; i++) adders[i] = new LongAdder();
+        return adders;
+    }
+
+    /**
+     * Adds time spent in a phase, attributed to the given schema unless it is {@code null}.
+     */
+    void time(Phase phase, String schema, long nanos) {
+        phases[phase.ordinal()].add(nanos);
+        if (schema != null) schemas.merge(schema, nanos, Long::sum);
+    }
+
+    void add(Counter counter, long amount) {
+        counters[counter.ordinal()].add(amount);
+    }
+
+    long nanos(Phase phase) {
+        return phases[phase.ordinal()].sum();
+    }
+
+    long count(Counter counter) {
+        return counters[counter.ordinal()].sum();
+    }
+
+    /**
+     * Returns the {@code limit} schemas with the highest total time, slowest first.
+     */
+    List<Map.Entry<String, Long>> slowest(int limit) {
+        return schemas.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(e -> Map.entry(e.getKey(), e.getValue()))
+                .toList();
+    }
+
+    /**
+     * Returns a human readable summary, one line per entry.
+     */
+    List<String> summary(int slowest) {
+        List<String> lines = new ArrayList<>();
+        lines.add(count(Counter.SCANNED) + " scanned, " + count(Counter.CONVERTED) + " converted, "
+                + count(Counter.UP_TO_DATE) + " up to date, " + count(Counter.UNCHANGED) + " unchanged, "
+                + count(Counter.REMOVED) + " removed; " + kib(count(Counter.BYTES_READ)) + " read, "
+                + kib(count(Counter.BYTES_WRITTEN)) + " written, " + count(Counter.NODES) + " nodes in "
+                + millis(System.nanoTime() - start));
+        StringJoiner phaseTimes = new StringJoiner(", ", "Phases (summed over threads): ", "");
+        for (Phase phase : Phase.values()) phaseTimes.add(name(phase) + " " + millis(nanos(phase)));
+        lines.add(phaseTimes.toString());
+        List<Map.Entry<String, Long>> slowestSchemas = slowest(slowest);
+        if (!slowestSchemas.isEmpty()) {
+            StringJoiner joiner = new StringJoiner(", ", "Slowest schemas: ", "");
+            for (Map.Entry<String, Long> e : slowestSchemas) joiner.add(e.getKey() + " " + millis(e.getValue()));
+            lines.add(joiner.toString());
+        }
+        return lines;
+    }
+
+    /**
+     * Writes a machine readable report with all times in nanoseconds, as CSV if the file name ends with
+     * {@code .csv} and as JSON otherwise.
+     */
+    void writeReport(Path file, int slowest) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        if (file.getFileName().toString().endsWith(".csv")) {
+            try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                out.write("kind,name,value\n");
+                out.write("total,wall," + (System.nanoTime() - start) + "\n");
+                for (Phase phase : Phase.values()) out.write("phase," + name(phase) + "," + nanos(phase) + "\n");
+                for (Counter counter : Counter.values()) out.write("counter," + name(counter) + "," + count(counter) + "\n");
+                for (Map.Entry<String, Long> e : slowest(slowest)) out.write("schema," + csv(e.getKey()) + "," + e.getValue() + "\n");
+            }
+            return;
+        }
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("wallNanos", System.nanoTime() - start);
+        Map<String, Long> phaseNanos = new LinkedHashMap<>();
+        for (Phase phase : Phase.values()) phaseNanos.put(name(phase), nanos(phase));
+        report.put("phaseNanos", phaseNanos);
+        Map<String, Long> counterValues = new LinkedHashMap<>();
+        for (Counter counter : Counter.values()) counterValues.put(name(counter), count(counter));
+        report.put("counters", counterValues);
+        List<Map<String, Object>> slowestSchemas = new ArrayList<>();
+        for (Map.Entry<String, Long> e : slowest(slowest)) {
+            Map<String, Object> schema = new LinkedHashMap<>();
+            schema.put("schema", e.getKey());
+            schema.put("nanos", e.getValue());
+            slowestSchemas.add(schema);
+        }
+        report.put("slowestSchemas", slowestSchemas);
+        MAPPER.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), report);
+    }
+
+    private static String name(Enum<?> value) {
+        String[] words = value.name().toLowerCase(Locale.ROOT).split("_");
+        StringBuilder name = new StringBuilder(words[0]);
+        for (int i = 1; i < words.length; i++) name.append(Character.toUpperCase(words[i].charAt(0))).append(words[i].substring(1));
+        return name.toString();
+    }
+
+    private static String csv(String value) {
+        return value.contains(",") || value.contains("\"") ? '"' + value.replace("\"", "\"\"") + '"' : value;
+    }
+
+    private static String millis(long nanos) {
+        return nanos / 1_000_000 + " ms";
+    }
+
+    private static String kib(long bytes) {
+        return String.format(Locale.ROOT, "%.1f KiB", bytes / 1024.0);
+    }
+
+    /**
+     * Counts the JSON objects written through a generator and adds them to {@link Counter#NODES} when closed.
+     */
+    static final class CountingGenerator extends JsonGeneratorDelegate {
+        private final BuildMetrics metrics;
+        private long objects;
+
+        CountingGenerator(JsonGenerator delegate, BuildMetrics metrics) {
+            // Serialize POJOs through this generator, so objects in default values are counted as well
+            super(delegate, false);
+            this.metrics = metrics;
+        }
+
+        @Override
+        public JsonGenerator writeStartObject() {
+            objects++;
+            return super.writeStartObject();
+        }
+
+        @Override
+        public JsonGenerator writeStartObject(Object currentValue) {
+            objects++;
+            return super.writeStartObject(currentValue);
+        }
+
+        @Override
+        public JsonGenerator writeStartObject(Object currentValue, int size) {
+            objects++;
+            return super.writeStartObject(currentValue, size);
+        }
+
+        @Override
+        public void close() {
+            metrics.add(Counter.NODES, objects);
+            objects = 0;
+            super.close();
+        }
+    }
+}
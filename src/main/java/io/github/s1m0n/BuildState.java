@@ -0,0 +1,133 @@
+package io.github.s1m0n;
+
+/*
+ * Copyright 2025 Simon Marksteiner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.apache.maven.plugin.logging.Log;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Persistent state of an incremental build: per source file the content hash, the named types it defines and
+ * references and the output it produced, together with a fingerprint of the plugin configuration.
+ */
+class BuildState {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * State of a single source file as recorded after its last successful conversion.
+     */
+    record Entry(String hash, long size, long lastModified, String output, List<String> defines,
+                 List<String> references) {
+
+        boolean isFresh(long size, long lastModified) {
+            return this.size == size && this.lastModified == lastModified;
+        }
+
+        Entry touch(long size, long lastModified) {
+            return new Entry(hash, size, lastModified, output, defines, references);
+        }
+    }
+
+    record Snapshot(String configuration, Map<String, Entry> files) {
+    }
+
+    private final File file;
+    private final String configuration;
+    private final Map<String, Entry> previous;
+    private final Map<String, Entry> current = new TreeMap<>();
+
+    private BuildState(File file, String configuration, Map<String, Entry> previous) {
+        this.file = file;
+        this.configuration = configuration;
+        this.previous = previous;
+    }
+
+    /**
+     * Loads the state stored in {@code file}. Returns an empty state if the file is missing, unreadable or was written
+     * for a different plugin configuration, which makes every source look changed.
+     */
+    static BuildState load(File file, String configuration, Log log) {
+        Map<String, Entry> previous = Collections.emptyMap();
+        if (file.isFile()) {
+            try {
+                Snapshot snapshot = MAPPER.readValue(file, Snapshot.class);
+                if (configuration.equals(snapshot.configuration()) && snapshot.files() != null) {
+                    previous = snapshot.files();
+                } else {
+                    log.info("Plugin configuration changed, converting all schemas");
+                }
+            } catch (Exception e) {
+                log.warn("Ignoring unreadable build state " + file + ": " + e.getMessage());
+            }
+        }
+        return new BuildState(file, configuration, previous);
+    }
+
+    Entry previous(String relativeName) {
+        return previous.get(relativeName);
+    }
+
+    Set<String> previousSources() {
+        return previous.keySet();
+    }
+
+    void record(String relativeName, Entry entry) {
+        current.put(relativeName, entry);
+    }
+
+    /**
+     * Returns the state for the next build, whose previous entries are the entries recorded in this one.
+     */
+    BuildState next() {
+        return new BuildState(file, configuration, new TreeMap<>(current));
+    }
+
+    void save() throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Could not create directory: " + parent);
+        }
+        MAPPER.writeValue(file, new Snapshot(configuration, current));
+    }
+
+    static String hash(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String hash(String content) {
+        return hash(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Deletes the output recorded for a source that no longer exists.
+     */
+    static boolean deleteOutput(File outputDirectory, Entry entry) throws IOException {
+        return entry.output() != null && Files.deleteIfExists(new File(outputDirectory, entry.output()).toPath());
+    }
+}
@@ -0,0 +1,123 @@
+package io.github.s1m0n;
+
+/*
+ * Copyright 2025 Simon Marksteiner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * Writes a bundle document produced by {@link AvroToJsonSchemaConverter#convertBundle} and records where each
+ * definition and entry point starts and ends, so readers can seek to a single schema without parsing the bundle.
+ */
+final class BundleWriter {
+
+    /**
+     * Byte range of one schema value within the bundle.
+     */
+    record Span(long offset, long length) {
+    }
+
+    private BundleWriter() {
+    }
+
+    /**
+     * Serializes the bundle to {@code out}, producing the same bytes as {@code writer.writeValue(out, bundle)}.
+     *
+     * @return byte ranges by section ({@code definitions}, {@code x-entryPoints}) and key
+     */
+    static Map<String, Map<String, Span>> write(Map<String, Object> bundle, OutputStream out, ObjectWriter writer) {
+        return write(bundle, out, writer, UnaryOperator.identity());
+    }
+
+    /**
+     * @param decorator wraps the generator created by {@code writer}, e.g. to observe the written tokens
+     */
+    static Map<String, Map<String, Span>> write(Map<String, Object> bundle, OutputStream out, ObjectWriter writer,
+                                                UnaryOperator<JsonGenerator> decorator) {
+        ValueTrackingOutputStream counting = new ValueTrackingOutputStream(out);
+        Map<String, Map<String, Span>> index = new LinkedHashMap<>();
+        // Sections and entries are written here, so the writer's key ordering must be applied here as well
+        boolean sorted = writer.isEnabled(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+        try (JsonGenerator gen = decorator.apply(writer.createGenerator(counting))) {
+            gen.writeStartObject();
+            for (Map.Entry<String, Object> section : (sorted ? new TreeMap<>(bundle) : bundle).entrySet()) {
+                if (!(section.getValue() instanceof Map<?, ?> entries)) {
+                    gen.writePOJOProperty(section.getKey(), section.getValue());
+                    continue;
+                }
+                Map<String, Span> spans = new LinkedHashMap<>();
+                gen.writeName(section.getKey());
+                gen.writeStartObject();
+                for (Map.Entry<?, ?> entry : (sorted ? new TreeMap<>(entries) : entries).entrySet()) {
+                    gen.writeName((String) entry.getKey());
+                    gen.flush();
+                    counting.markValue();
+                    gen.writePOJO(entry.getValue());
+                    gen.flush();
+                    spans.put((String) entry.getKey(), new Span(counting.valueStart, counting.count() - counting.valueStart));
+                }
+                gen.writeEndObject();
+                index.put(section.getKey(), spans);
+            }
+            gen.writeEndObject();
+        }
+        return index;
+    }
+
+    /**
+     * Remembers where the next value starts, skipping the separator the generator writes between a property name and
+     * its value.
+     */
+    private static final class ValueTrackingOutputStream extends CountingOutputStream {
+        long valueStart = -1;
+
+        ValueTrackingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        void markValue() {
+            valueStart = -1;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (valueStart < 0 && b != ' ' && b != ':') valueStart = count();
+            super.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (valueStart < 0) {
+                for (int i = off; i < off + len; i++) {
+                    if (b[i] != ' ' && b[i] != ':') {
+                        valueStart = count() + i - off;
+                        break;
+                    }
+                }
+            }
+            super.write(b, off, len);
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package io.github.s1m0n;
+
+/*
+ * Copyright 2025 Simon Marksteiner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content-addressed store of converted named types. Every distinct converted type is written once to a file named
+ * after the hash of its content; per-schema documents and other stored types refer to it through {@code $ref}. An
+ * index maps the named types used by every output file to their hashes.
+ */
+final class ContentStore {
+
+    static final String INDEX = "index.json";
+
+    // SHA-256 in hex, the name of every stored type
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    // The index is shared by all builds of the output, so it is written the same way on every platform
+    private static final ObjectWriter INDEX_WRITER = OutputFormat.PRETTY.writer(true);
+
+    /**
+     * A converted schema split into its document, which refers to stored types only, and the stored types it uses.
+     *
+     * @param objects serialized stored types by hash
+     * @param types   hash of every named type the document uses, by full name
+     */
+    record Split(Map<String, Object> document, Map<String, byte[]> objects, Map<String, String> types) {
+    }
+
+    record Index(Map<String, Map<String, String>> files) {
+    }
+
+    private final Path directory;
+    private final ObjectWriter writer;
+    private final String extension;
+    private final boolean gzip;
+    private final JsonSchemaDraft draft;
+    private final String definitionRef;
+    private final Set<String> stored = ConcurrentHashMap.newKeySet();
+    private final Map<String, Map<String, String>> files = new TreeMap<>();
+
+    /**
+     * @param extension file name extension of stored types, e.g. {@code .schema.json}
+     */
+    ContentStore(Path directory, ObjectWriter writer, String extension, boolean gzip, JsonSchemaDraft draft) {
+        this.directory = directory;
+        this.writer = writer;
+        this.extension = extension;
+        this.gzip = gzip;
+        this.draft = draft;
+        this.definitionRef = draft.reference("");
+    }
+
+    Path directory() {
+        return directory;
+    }
+
+    /**
+     * Loads the index of a previous build, so entries of outputs that are not regenerated are kept.
+     */
+    void load() throws IOException {
+        Path index = directory.resolve(INDEX);
+        if (!Files.isRegularFile(index)) return;
+        Index previous = MAPPER.readValue(index.toFile(), Index.class);
+        if (previous.files() != null) files.putAll(previous.files());
+    }
+
+    /**
+     * Splits a document produced by {@link AvroToJsonSchemaConverter#convertBundle} into stored types and the
+     * document of one entry point.
+     *
+     * @param prefix path of the store directory relative to the document, ending with {@code /}
+     */
+    Split split(Map<String, Object> bundle, String entryPoint, String prefix) {
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, Object>> definitions = (Map<String, Map<String, Object>>) bundle.get(draft.definitions());
+        @SuppressWarnings("unchecked")
+        Map<String, Object> entry = (Map<String, Object>) ((Map<String, Object>) bundle.get(AvroToJsonSchemaConverter.ENTRY_POINTS)).get(entryPoint);
+
+        Map<String, String> hashes = new LinkedHashMap<>();
+        Map<String, byte[]> objects = new LinkedHashMap<>();
+        for (List<String> component : components(definitions)) {
+            store(component, definitions, hashes, objects);
+        }
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("$schema", bundle.get("$schema"));
+        document.putAll(rewrite(entry, name -> prefix + hashes.get(name) + extension));
+        return new Split(document, objects, hashes);
+    }
+
+    /**
+     * Hashes and serializes the types of one strongly connected component, whose dependencies are already stored. A
+     * type that does not refer to itself is addressed by the hash of its content; types referring to each other are
+     * addressed by the hash of the whole component and their name, as none of their contents can be written first.
+     */
+    private void store(List<String> component, Map<String, Map<String, Object>> definitions, Map<String, String> hashes,
+                       Map<String, byte[]> objects) {
+        Set<String> members = new HashSet<>(component);
+        String only = component.getFirst();
+        if (component.size() == 1 && !references(definitions.get(only)).contains(only)) {
+            byte[] content = serialize(rewrite(definitions.get(only), name -> hashes.get(name) + extension));
+            String hash = BuildState.hash(content);
+            hashes.put(only, hash);
+            objects.put(hash, content);
+            return;
+        }
+        List<String> sorted = new ArrayList<>(component);
+        Collections.sort(sorted);
+        ByteArrayOutputStream key = new ByteArrayOutputStream();
+        for (String member : sorted) {
+            key.writeBytes((member + '\n').getBytes(StandardCharsets.UTF_8));
+            key.writeBytes(serialize(rewrite(definitions.get(member),
+                    name -> members.contains(name) ? "#" + name : hashes.get(name) + extension)));
+            key.write('\n');
+        }
+        String componentHash = BuildState.hash(key.toByteArray());
+        for (String member : sorted) hashes.put(member, BuildState.hash(componentHash + '\n' + member));
+        for (String member : sorted) {
+            objects.put(hashes.get(member), serialize(rewrite(definitions.get(member), name -> hashes.get(name) + extension)));
+        }
+    }
+
+    /**
+     * Returns the strongly connected components of the reference graph between definitions, every component after
+     * the components it refers to (Tarjan's algorithm).
+     */
+    private List<List<String>> components(Map<String, Map<String, Object>> definitions) {
+        Map<String, Set<String>> edges = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, Object>> e : definitions.entrySet()) {
+            edges.put(e.getKey(), references(e.getValue()));
+        }
+        List<List<String>> components = new ArrayList<>();
+        Map<String, Integer> index = new HashMap<>();
+        Map<String, Integer> low = new HashMap<>();
+        Deque<String> stack = new ArrayDeque<>();
+        Set<String> onStack = new HashSet<>();
+        for (String name : edges.keySet()) {
+            if (!index.containsKey(name)) connect(name, edges, index, low, stack, onStack, components);
+        }
+        return components;
+    }
+
+    private void connect(String name, Map<String, Set<String>> edges, Map<String, Integer> index,
+                                Map<String, Integer> low, Deque<String> stack, Set<String> onStack,
+                                List<List<String>> components) {
+        index.put(name, index.size());
+        low.put(name, index.get(name));
+        stack.push(name);
+        onStack.add(name);
+        for (String target : edges.getOrDefault(name, Set.of())) {
+            if (!index.containsKey(target)) {
+                connect(target, edges, index, low, stack, onStack, components);
+                low.put(name, Math.min(low.get(name), low.get(target)));
+            } else if (onStack.contains(target)) {
+                low.put(name, Math.min(low.get(name), index.get(target)));
+            }
+        }
+        if (low.get(name).equals(index.get(name))) {
+            List<String> component = new ArrayList<>();
+            String member;
+            do {
+                member = stack.pop();
+                onStack.remove(member);
+                component.add(member);
+            } while (!member.equals(name));
+            components.add(component);
+        }
+    }
+
+    private Set<String> references(Object node) {
+        Set<String> names = new LinkedHashSet<>();
+        collectReferences(node, names);
+        return names;
+    }
+
+    private void collectReferences(Object node, Set<String> names) {
+        if (node instanceof Map<?, ?> map) {
+            for (Map.Entry<?, ?> e : map.entrySet()) {
+                if ("$ref".equals(e.getKey()) && e.getValue() instanceof String ref && ref.startsWith(definitionRef)) {
+                    names.add(ref.substring(definitionRef.length()));
+                } else {
+                    collectReferences(e.getValue(), names);
+                }
+            }
+        } else if (node instanceof List<?> list) {
+            for (Object element : list) collectReferences(element, names);
+        }
+    }
+
+    /**
+     * Copies a converted schema, replacing every reference to a definition by the target the given function returns
+     * for the definition's name.
+     */
+    private Object rewrite(Object node, Function<String, String> target) {
+        if (node instanceof Map<?, ?> map) {
+            Map<String, Object> copy = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> e : map.entrySet()) {
+                Object value = e.getValue();
+                if ("$ref".equals(e.getKey()) && value instanceof String ref && ref.startsWith(definitionRef)) {
+                    copy.put("$ref", target.apply(ref.substring(definitionRef.length())));
+                } else {
+                    copy.put((String) e.getKey(), rewrite(value, target));
+                }
+            }
+            return copy;
+        }
+        if (node instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            for (Object element : list) copy.add(rewrite(element, target));
+            return copy;
+        }
+        return node;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> rewrite(Map<String, Object> node, Function<String, String> target) {
+        return (Map<String, Object>) rewrite((Object) node, target);
+    }
+
+    private byte[] serialize(Map<String, Object> node) {
+        return writer.writeValueAsBytes(node);
+    }
+
+    /**
+     * Writes the stored types of a split that are not in the store yet and records the types used by
+     * {@code output}.
+     *
+     * @return the number of stored types written
+     */
+    int write(String output, Split split) throws IOException {
+        int written = 0;
+        for (Map.Entry<String, byte[]> object : split.objects().entrySet()) {
+            if (!stored.add(object.getKey())) continue;
+            Path file = directory.resolve(object.getKey() + extension);
+            // Content-addressed: an existing file already holds exactly this content
+            if (Files.isRegularFile(file)) continue;
+            OutputFiles.write(file, encode(object.getValue()), false);
+            written++;
+        }
+        synchronized (files) {
+            files.put(output, new TreeMap<>(split.types()));
+        }
+        return written;
+    }
+
+    private byte[] encode(byte[] content) throws IOException {
+        if (!gzip) return content;
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(content);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Drops index entries of outputs that no longer exist, writes the index and deletes stored types no output uses
+     * anymore. Only files named like a stored type are deleted, any other file in the directory is kept.
+     *
+     * @param outputs all current output files
+     * @return the number of deleted stored types
+     */
+    int finish(Set<String> outputs) throws IOException {
+        Set<String> used = new HashSet<>();
+        synchronized (files) {
+            files.keySet().retainAll(outputs);
+            for (Map<String, String> types : files.values()) used.addAll(types.values());
+            Files.createDirectories(directory);
+            OutputFiles.write(directory.resolve(INDEX), INDEX_WRITER.writeValueAsBytes(new Index(files)), true);
+        }
+        int deleted = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + extension)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                String hash = name.substring(0, name.length() - extension.length());
+                if (!HASH.matcher(hash).matches()) continue;
+                if (!used.contains(hash) && Files.deleteIfExists(file)) {
+                    stored.remove(hash);
+                    deleted++;
+                }
+            }
+        }
+        return deleted;
+    }
+}
@@ -0,0 +1,245 @@
+package io.github.s1m0n;
+
+/*
+ * Copyright 2025 Simon Marksteiner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Bounded least-recently-used cache of converted schemas, for converting the same schemas repeatedly, e.g. in a
+ * schema registry. Register it with {@link AvroToJsonSchemaConverter.Builder#cache}; one cache can be shared by several
+ * converters. Entries are keyed by the converter and a 64-bit fingerprint of the complete schema, including docs,
+ * defaults and logical types, which the Avro parsing canonical form leaves out. Cached results are immutable and safe
+ * to share between threads. Self-contained named types are cached as well, so schemas sharing a record reuse its
+ * converted form.
+ */
+public final class ConversionCache {
+
+    /**
+     * Cache statistics. {@code weight} is the number of JSON values held by all entries.
+     */
+    public record Stats(long hits, long misses, long evictions, int entries, long weight) {
+    }
+
+    record Key(Object converter, long fingerprint, boolean document) {
+    }
+
+    private record Entry(Map<String, Object> value, long weight) {
+    }
+
+    private static final Class<?> UNMODIFIABLE_MAP = Collections.unmodifiableMap(new HashMap<>()).getClass();
+
+    private final long maximumEntries;
+    private final long maximumWeight;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param maximumEntries maximum number of cached documents and named types
+     * @param maximumWeight  maximum number of JSON values held by all entries together
+     */
+    public ConversionCache(long maximumEntries, long maximumWeight) {
+        if (maximumEntries <= 0 || maximumWeight <= 0) {
+            throw new IllegalArgumentException("Cache limits must be positive: " + maximumEntries + ", " + maximumWeight);
+        }
+        this.maximumEntries = maximumEntries;
+        this.maximumWeight = maximumWeight;
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits, misses, evictions, entries.size(), weight);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * Fingerprints of the schemas of one conversion, memoized per {@link Schema} instance. Each schema is hashed from
+     * its own attributes and the fingerprints of its children, so fingerprinting every named type of a deeply nested
+     * schema stays linear instead of serializing each subtree again. The schema is walked with an explicit stack.
+     * <p>
+     * A named type used inside itself contributes only its name; its attributes are part of the enclosing fingerprint.
+     * A fingerprint is therefore only meaningful within the document it was computed for, which is why instances are
+     * not shared between conversions.
+     */
+    static final class Fingerprints {
+
+        private final Map<Schema, Long> known = new IdentityHashMap<>();
+
+        long of(Schema schema) {
+            Set<Schema> entered = Collections.newSetFromMap(new IdentityHashMap<>());
+            Deque<Schema> stack = new ArrayDeque<>();
+            stack.push(schema);
+            while (!stack.isEmpty()) {
+                Schema next = stack.peek();
+                if (known.containsKey(next)) {
+                    stack.pop();
+                } else if (entered.add(next)) {
+                    // Children still being fingerprinted further down are named types used inside themselves
+                    for (Schema child : children(next)) {
+                        if (!entered.contains(child)) stack.push(child);
+                    }
+                } else {
+                    stack.pop();
+                    known.put(next, SchemaNormalization.fingerprint64(describe(next).getBytes(StandardCharsets.UTF_8)));
+                }
+            }
+            return known.get(schema);
+        }
+
+        private static List<Schema> children(Schema schema) {
+            return switch (schema.getType()) {
+                case RECORD -> schema.getFields().stream().map(Schema.Field::schema).toList();
+                case ARRAY -> List.of(schema.getElementType());
+                case MAP -> List.of(schema.getValueType());
+                case UNION -> schema.getTypes();
+                default -> List.of();
+            };
+        }
+
+        private String describe(Schema schema) {
+            StringBuilder b = new StringBuilder().append(schema.getType()).append('|').append(schema.getObjectProps());
+            if (AvroToJsonSchemaConverter.isNamed(schema)) {
+                b.append('|').append(schema.getFullName()).append('|').append(schema.getDoc())
+                        .append('|').append(schema.getAliases());
+            }
+            switch (schema.getType()) {
+                case RECORD -> {
+                    b.append('|').append(schema.isError());
+                    for (Schema.Field f : schema.getFields()) {
+                        b.append("|field|").append(f.name()).append('|').append(f.doc()).append('|').append(f.order())
+                                .append('|').append(f.aliases()).append('|').append(f.getObjectProps())
+                                .append('|').append(f.hasDefaultValue() ? AvroDefaultValues.json(f) : "")
+                                .append('|').append(child(f.schema()));
+                    }
+                }
+                case ENUM -> b.append('|').append(schema.getEnumSymbols()).append('|').append(schema.getEnumDefault());
+                case FIXED -> b.append('|').append(schema.getFixedSize());
+                case ARRAY, MAP, UNION -> {
+                    for (Schema child : children(schema)) b.append('|').append(child(child));
+                }
+                default -> {
+                }
+            }
+            return b.toString();
+        }
+
+        private String child(Schema schema) {
+            Long fingerprint = known.get(schema);
+            return fingerprint != null ? Long.toHexString(fingerprint) : "@" + schema.getFullName();
+        }
+    }
+
+    /**
+     * Returns the cached value or computes, freezes and caches it. Computation runs without holding the lock, so
+     * concurrent misses of the same key may both compute it.
+     */
+    Map<String, Object> get(Key key, Supplier<Map<String, Object>> compute) {
+        Map<String, Object> cached = getIfPresent(key);
+        return cached != null ? cached : put(key, compute.get());
+    }
+
+    synchronized Map<String, Object> getIfPresent(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value();
+    }
+
+    /**
+     * Caches an immutable copy of {@code value} and returns it.
+     */
+    @SuppressWarnings("unchecked")
+    Map<String, Object> put(Key key, Map<String, Object> value) {
+        long[] size = new long[1];
+        Map<String, Object> frozen = (Map<String, Object>) freeze(value, size);
+        synchronized (this) {
+            Entry previous = entries.put(key, new Entry(frozen, size[0]));
+            if (previous != null) weight -= previous.weight();
+            weight += size[0];
+            Iterator<Entry> eldest = entries.values().iterator();
+            while ((entries.size() > maximumEntries || weight > maximumWeight) && eldest.hasNext()) {
+                weight -= eldest.next().weight();
+                eldest.remove();
+                evictions++;
+            }
+        }
+        return frozen;
+    }
+
+    /**
+     * Copies are wrapped right away and filled from a work stack, so deeply nested values do not need a deep thread
+     * stack.
+     */
+    private static Object freeze(Object value, long[] size) {
+        Deque<Unfrozen> pending = new ArrayDeque<>();
+        Object frozen = frozen(value, size, pending);
+        while (!pending.isEmpty()) {
+            Unfrozen next = pending.pop();
+            if (next.map() != null) {
+                for (Map.Entry<?, ?> e : ((Map<?, ?>) next.source()).entrySet()) {
+                    next.map().put(e.getKey(), frozen(e.getValue(), size, pending));
+                }
+            } else {
+                for (Object element : (List<?>) next.source()) next.list().add(frozen(element, size, pending));
+            }
+        }
+        return frozen;
+    }
+
+    /**
+     * A map or list whose elements still have to be added to its copy.
+     */
+    private record Unfrozen(Object source, List<Object> list, Map<Object, Object> map) {
+    }
+
+    private static Object frozen(Object value, long[] size, Deque<Unfrozen> pending) {
+        size[0]++;
+        if (value instanceof Map<?, ?> map) {
+            if (isFrozen(map)) return value;
+            Map<Object, Object> copy = new LinkedHashMap<>(map.size() * 4 / 3 + 1);
+            pending.push(new Unfrozen(map, null, copy));
+            return Collections.unmodifiableMap(copy);
+        }
+        if (value instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            pending.push(new Unfrozen(list, copy, null));
+            return Collections.unmodifiableList(copy);
+        }
+        return value;
+    }
+
+    /**
+     * Cached named types are already frozen when they are embedded into a document; their weight is only counted in
+     * their own entry.
+     */
+    private static boolean isFrozen(Map<?, ?> map) {
+        return map.getClass() == UNMODIFIABLE_MAP;
+    }
+}
@@ -0,0 +1,52 @@
+package io.github.s1m0n;
+
+/*
+ * Copyright 2025 Simon Marksteiner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Locale;
+
+/**
+ * How a build reacts to schemas that cannot be parsed or converted.
+ */
+enum FailureMode {
+
+    /** Stop at the first failing schema. */
+    FAIL_FAST("failFast"),
+    /** Process all schemas, then fail the build listing every failure. */
+    COLLECT_ALL("collectAll"),
+    /** Process all schemas and only log the failing ones as warnings. */
+    WARN_ONLY("warnOnly");
+
+    private final String parameterValue;
+
+    FailureMode(String parameterValue) {
+        this.parameterValue = parameterValue;
+    }
+
+    /**
+     * Parses a mode name case-insensitively, e.g. {@code collectAll}.
+     *
+     * @throws IllegalArgumentException if the name is not a known mode
+     */
+    static FailureMode parse(String name) {
+        for (FailureMode mode : values()) {
+            if (mode.parameterValue.toLowerCase(Locale.ROOT).equals(name.trim().toLowerCase(Locale.ROOT))) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Unknown failure mode '" + name + "', expected one of failFast, collectAll, warnOnly");
+    }
+}
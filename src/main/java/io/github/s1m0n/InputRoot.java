@@ -0,0 +1,50 @@
+package io.github.s1m0n;
+
+/*
+ * Copyright 2025 Simon Marksteiner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+
+/**
+ * One entry of the {@code inputs} parameter: a schema file or directory and the directory its JSON Schemas are
+ * written to.
+ */
+public class InputRoot {
+
+    /**
+     * Input file, directory or jar/zip archive containing Avro schema files.
+     */
+    File input;
+
+    /**
+     * Resource directory on the plugin's class path to convert instead of {@code input}.
+     */
+    String classpathInput;
+
+    /**
+     * Output directory for the schemas of this input. Defaults to the plugin's {@code outputDirectory}.
+     */
+    File outputDirectory;
+
+    public InputRoot() {
+    }
+
+    InputRoot(File input, String classpathInput, File outputDirectory) {
+        this.input = input;
+        this.classpathInput = classpathInput;
+        this.outputDirectory = outputDirectory;
+    }
+}
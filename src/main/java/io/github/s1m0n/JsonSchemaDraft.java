@@ -0,0 +1,94 @@
+package io.github.s1m0n;
+
+/*
+ * Copyright 2025 Simon Marksteiner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * JSON Schema dialect of the generated documents. The newer drafts keep named types under {@code $defs} and give each
+ * definition an {@code $anchor} with its Avro full name, so other documents can refer to {@code file#com.example.Type}.
+ */
+public enum JsonSchemaDraft {
+
+    /** Draft-07, with named types under {@code definitions}. */
+    DRAFT_07("draft-07", "http://json-schema.org/draft-07/schema#", "definitions", null),
+    /** Draft 2019-09, with named types under {@code $defs}. */
+    DRAFT_2019_09("2019-09", "https://json-schema.org/draft/2019-09/schema", "$defs",
+            Pattern.compile("[A-Za-z][-A-Za-z0-9.:_]*")),
+    /** Draft 2020-12, with named types under {@code $defs}. */
+    DRAFT_2020_12("2020-12", "https://json-schema.org/draft/2020-12/schema", "$defs",
+            Pattern.compile("[A-Za-z_][-A-Za-z0-9._]*"));
+
+    private final String parameterValue;
+    private final String uri;
+    private final String definitions;
+    private final Pattern anchor;
+
+    JsonSchemaDraft(String parameterValue, String uri, String definitions, Pattern anchor) {
+        this.parameterValue = parameterValue;
+        this.uri = uri;
+        this.definitions = definitions;
+        this.anchor = anchor;
+    }
+
+    /**
+     * Value of the {@code $schema} keyword.
+     */
+    public String uri() {
+        return uri;
+    }
+
+    /**
+     * Keyword holding the definitions of named types.
+     */
+    public String definitions() {
+        return definitions;
+    }
+
+    /**
+     * Returns the {@code $ref} target of a named type's definition.
+     */
+    String reference(String fullName) {
+        return "#/" + definitions + "/" + fullName;
+    }
+
+    /**
+     * Returns the {@code $anchor} of a named type, or {@code null} if the draft has no anchors or the name is not a
+     * valid one.
+     */
+    String anchor(String fullName) {
+        return anchor != null && anchor.matcher(fullName).matches() ? fullName : null;
+    }
+
+    /**
+     * Parses a draft name case-insensitively, e.g. {@code 2020-12}; a {@code draft-} prefix is optional.
+     * {@code null} stands for the default {@link #DRAFT_07}.
+     *
+     * @throws IllegalArgumentException if the name is not a known draft
+     */
+    static JsonSchemaDraft parse(String name) {
+        if (name == null) return DRAFT_07;
+        String normalized = name.trim().toLowerCase(Locale.ROOT);
+        for (JsonSchemaDraft draft : values()) {
+            if (draft.parameterValue.equals(normalized) || ("draft-" + draft.parameterValue).equals(normalized)
+                    || draft.parameterValue.equals("draft-" + normalized)) {
+                return draft;
+            }
+        }
+        throw new IllegalArgumentException("Unknown JSON Schema draft '" + name + "', expected one of draft-07, 2019-09, 2020-12");
+    }
+}
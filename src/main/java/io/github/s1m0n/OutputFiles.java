@@ -0,0 +1,111 @@
+package io.github.s1m0n;
+
+/*
+ * Copyright 2025 Simon Marksteiner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Writes output files through a temporary file and an atomic rename, so readers and interrupted builds never see a
+ * partially written file, and optionally leaves files untouched when their content did not change.
+ */
+final class OutputFiles {
+
+    /**
+     * Writes the content of an output file to the given stream.
+     */
+    @FunctionalInterface
+    interface Content {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private OutputFiles() {
+    }
+
+    /**
+     * Writes {@code target} from the given content.
+     *
+     * @param skipUnchanged whether to keep an existing file with identical content, including its modification time
+     * @return {@code false} if the existing file was kept because its content is identical
+     */
+    static boolean write(Path target, Content content, boolean skipUnchanged) throws IOException {
+        Path parent = target.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, "." + target.getFileName(), ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                content.writeTo(out);
+            }
+            if (skipUnchanged && sameContent(temp, target)) {
+                return false;
+            }
+            move(temp, target);
+            return true;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Writes {@code target} from an in-memory content, comparing against the existing file without a temporary copy.
+     *
+     * @return {@code false} if the existing file was kept because its content is identical
+     */
+    static boolean write(Path target, byte[] content, boolean skipUnchanged) throws IOException {
+        if (skipUnchanged && sameContent(content, target)) {
+            return false;
+        }
+        return write(target, out -> out.write(content), false);
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static boolean sameContent(Path written, Path existing) throws IOException {
+        return Files.isRegularFile(existing)
+                && Files.size(written) == Files.size(existing)
+                && Files.mismatch(written, existing) == -1;
+    }
+
+    private static boolean sameContent(byte[] content, Path existing) throws IOException {
+        if (!Files.isRegularFile(existing) || Files.size(existing) != content.length) return false;
+        byte[] buffer = new byte[8192];
+        try (InputStream in = Files.newInputStream(existing)) {
+            int offset = 0;
+            int read;
+            while ((read = in.readNBytes(buffer, 0, buffer.length)) > 0) {
+                if (offset + read > content.length
+                        || !Arrays.equals(buffer, 0, read, content, offset, offset + read)) {
+                    return false;
+                }
+                offset += read;
+            }
+            return offset == content.length;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package io.github.s1m0n;
+
+/*
+ * Copyright 2025 Simon Marksteiner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.core.util.DefaultIndenter;
+import tools.jackson.core.util.DefaultPrettyPrinter;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.SerializationFeature;
+import tools.jackson.databind.cfg.MapperBuilder;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.module.SimpleModule;
+import tools.jackson.databind.ser.std.StdSerializer;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Locale;
+
+/**
+ * Encodings in which generated schemas can be written.
+ */
+enum OutputFormat {
+
+    /** Indented JSON. */
+    PRETTY(".json"),
+    /** JSON without whitespace. */
+    COMPACT(".json"),
+    /** Binary Smile encoding of the JSON document. */
+    SMILE(".smile"),
+    /** Binary CBOR encoding of the JSON document. */
+    CBOR(".cbor");
+
+    private final String extension;
+
+    OutputFormat(String extension) {
+        this.extension = extension;
+    }
+
+    String extension() {
+        return extension;
+    }
+
+    boolean isText() {
+        return this == PRETTY || this == COMPACT;
+    }
+
+    ObjectWriter writer() {
+        return writer(false);
+    }
+
+    /**
+     * @param canonical whether to write object keys in sorted order, numbers in a normalized form and line breaks as
+     *                  {@code \n} on every platform, so equal documents are always written as equal bytes
+     */
+    ObjectWriter writer(boolean canonical) {
+        if (canonical) {
+            MapperBuilder<?, ?> builder = switch (this) {
+                case SMILE -> SmileMapper.builder();
+                case CBOR -> CBORMapper.builder();
+                default -> JsonMapper.builder();
+            };
+            SimpleModule numbers = new SimpleModule("canonical-numbers");
+            numbers.addSerializer(Double.class, new CanonicalNumberSerializer<>(Double.class));
+            numbers.addSerializer(Float.class, new CanonicalNumberSerializer<>(Float.class));
+            numbers.addSerializer(BigDecimal.class, new CanonicalNumberSerializer<>(BigDecimal.class));
+            numbers.addSerializer(BigInteger.class, new CanonicalNumberSerializer<>(BigInteger.class));
+            ObjectMapper mapper = builder.enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                    .enable(StreamWriteFeature.WRITE_BIGDECIMAL_AS_PLAIN)
+                    .addModule(numbers)
+                    .build();
+            if (this != PRETTY) return mapper.writer();
+            DefaultIndenter indenter = new DefaultIndenter("  ", "\n");
+            return mapper.writer().with(new DefaultPrettyPrinter().withObjectIndenter(indenter));
+        }
+        switch (this) {
+            case PRETTY:
+                return new ObjectMapper().writerWithDefaultPrettyPrinter();
+            case COMPACT:
+                return new ObjectMapper().writer();
+            case SMILE:
+                return new SmileMapper().writer();
+            case CBOR:
+                return new CBORMapper().writer();
+            default:
+                throw new IllegalStateException("Unknown output format: " + this);
+        }
+    }
+
+    /**
+     * Writes a number as the shortest plain decimal of its value: {@code 1.50}, {@code 15e-1} and {@code 1.5} are all
+     * written as {@code 1.5}, and whole numbers as integers.
+     */
+    private static final class CanonicalNumberSerializer<T extends Number> extends StdSerializer<T> {
+
+        CanonicalNumberSerializer(Class<T> type) {
+            super(type);
+        }
+
+        @Override
+        public void serialize(T value, JsonGenerator gen, SerializationContext context) {
+            if ((value instanceof Double || value instanceof Float) && !Double.isFinite(value.doubleValue())) {
+                gen.writeNumber(value.doubleValue());
+                return;
+            }
+            // Double and Float print their shortest round-tripping representation
+            BigDecimal decimal = value instanceof BigDecimal d ? d : new BigDecimal(value.toString());
+            decimal = decimal.signum() == 0 ? BigDecimal.ZERO : decimal.stripTrailingZeros();
+            if (decimal.scale() > 0) {
+                gen.writeNumber(decimal);
+            } else if (decimal.precision() - decimal.scale() <= 18) {
+                gen.writeNumber(decimal.longValueExact());
+            } else {
+                gen.writeNumber(decimal.toBigIntegerExact());
+            }
+        }
+    }
+
+    /**
+     * Parses a format name case-insensitively; {@code null} stands for the default {@link #PRETTY}.
+     *
+     * @throws IllegalArgumentException if the name is not a known format
+     */
+    static OutputFormat parse(String name) {
+        if (name == null) return PRETTY;
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown output format '" + name + "', expected one of pretty, compact, smile, cbor");
+        }
+    }
+}
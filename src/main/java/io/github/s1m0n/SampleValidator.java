@@ -0,0 +1,326 @@
+package io.github.s1m0n;
+
+/*
+ * Copyright 2025 Simon Marksteiner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import org.apache.avro.Schema;
+import tools.jackson.databind.JsonNode;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Validates JSON samples against the JSON Schema that {@link AvroToJsonSchemaConverter} generates for an Avro schema,
+ * without interpreting the generated document. The checks are compiled once from the Avro schema: union branches are
+ * dispatched by the JSON type of the value, record fields are looked up in a hash table, and scalar types and enum
+ * symbols come from the converter's type mappers. Instances are immutable and can be shared between threads.
+ */
+final class SampleValidator {
+
+    /**
+     * JSON value types, as distinguished by JSON Schema's {@code type} keyword.
+     */
+    private enum Kind {
+        NULL, BOOLEAN, INTEGER, NUMBER, STRING, ARRAY, OBJECT;
+
+        static Kind of(JsonNode node) {
+            if (node.isNull()) return NULL;
+            if (node.isBoolean()) return BOOLEAN;
+            if (node.isIntegralNumber()) return INTEGER;
+            if (node.isNumber()) return NUMBER;
+            if (node.isString()) return STRING;
+            if (node.isArray()) return ARRAY;
+            return OBJECT;
+        }
+
+        static int mask(String type) {
+            return switch (type) {
+                case "null" -> bit(NULL);
+                case "boolean" -> bit(BOOLEAN);
+                // A number with a zero fraction is an integer too; the check decides
+                case "integer", "number" -> bit(INTEGER) | bit(NUMBER);
+                case "string" -> bit(STRING);
+                case "array" -> bit(ARRAY);
+                case "object" -> bit(OBJECT);
+                default -> 0;
+            };
+        }
+
+        static int bit(Kind kind) {
+            return 1 << kind.ordinal();
+        }
+
+        /**
+         * Describes the kinds of a mask like a {@code type} keyword would, e.g. {@code string or null}.
+         */
+        static String describe(int kinds) {
+            List<String> names = new ArrayList<>();
+            for (Kind kind : values()) {
+                // Integers are implied by numbers
+                if ((kinds & bit(kind)) == 0 || kind == INTEGER && (kinds & bit(NUMBER)) != 0) continue;
+                names.add(kind.name().toLowerCase(Locale.ROOT));
+            }
+            if (names.size() == 1) return names.getFirst();
+            return String.join(", ", names.subList(0, names.size() - 1)) + " or " + names.getLast();
+        }
+    }
+
+    /**
+     * A violation found in a sample, with the JSON pointer of the offending value. Only created on failure.
+     */
+    private record Violation(String path, String message) {
+        Violation under(String segment) {
+            return new Violation("/" + segment.replace("~", "~0").replace("/", "~1") + path, message);
+        }
+    }
+
+    private abstract static class Plan {
+        /** JSON value types the plan may accept, as a bit mask of {@link Kind}s. */
+        abstract int kinds();
+
+        abstract Violation check(JsonNode node);
+    }
+
+    private final Plan root;
+
+    private SampleValidator(Plan root) {
+        this.root = root;
+    }
+
+    /**
+     * Compiles the checks for samples of the given schema, using the scalar mappings of {@code converter}.
+     */
+    static SampleValidator compile(Schema schema, AvroToJsonSchemaConverter converter) {
+        return new SampleValidator(new Compiler(converter).compile(schema));
+    }
+
+    /**
+     * Returns a description of the first violation found in the sample, or {@code null} if it is valid.
+     */
+    String validate(JsonNode sample) {
+        Violation violation = root.check(sample);
+        if (violation == null) return null;
+        return (violation.path().isEmpty() ? "/" : violation.path()) + ": " + violation.message();
+    }
+
+    private static final class Compiler {
+        private final AvroToJsonSchemaConverter converter;
+        private final Map<String, Plan> named = new HashMap<>();
+
+        Compiler(AvroToJsonSchemaConverter converter) {
+            this.converter = converter;
+        }
+
+        Plan compile(Schema schema) {
+            boolean isNamed = AvroToJsonSchemaConverter.isNamed(schema);
+            if (isNamed && named.containsKey(schema.getFullName())) return named.get(schema.getFullName());
+            switch (schema.getType()) {
+                case RECORD:
+                    // Registered before its fields are compiled, so recursive uses find it
+                    RecordPlan record = new RecordPlan();
+                    named.put(schema.getFullName(), record);
+                    List<String> required = new ArrayList<>();
+                    for (Schema.Field f : schema.getFields()) {
+                        record.fields.put(f.name(), compile(f.schema()));
+                        if (!converter.isNullable(f.schema())) required.add(f.name());
+                    }
+                    record.required = required.toArray(new String[0]);
+                    return record;
+                case ARRAY:
+                    return new ArrayPlan(compile(schema.getElementType()));
+                case MAP:
+                    return new MapPlan(compile(schema.getValueType()));
+                case UNION:
+                    List<Plan> branches = new ArrayList<>();
+                    for (Schema branch : schema.getTypes()) branches.add(compile(branch));
+                    return new UnionPlan(branches);
+                default:
+                    Plan scalar = scalar(schema);
+                    if (isNamed) named.put(schema.getFullName(), scalar);
+                    return scalar;
+            }
+        }
+
+        private Plan scalar(Schema schema) {
+            Map<String, Object> attributes = new LinkedHashMap<>();
+            converter.putScalarAttributes(schema, attributes);
+            Object type = attributes.get("type");
+            int kinds = 0;
+            boolean integer = false;
+            if (type instanceof String s) {
+                kinds = Kind.mask(s);
+                integer = "integer".equals(s);
+            } else if (type instanceof Collection<?> types) {
+                for (Object t : types) kinds |= Kind.mask(String.valueOf(t));
+                integer = !types.contains("number") && types.contains("integer");
+            }
+            Set<String> symbols = null;
+            if (attributes.get("enum") instanceof Collection<?> values
+                    && values.stream().allMatch(String.class::isInstance)) {
+                symbols = new HashSet<>();
+                for (Object value : values) symbols.add((String) value);
+            }
+            // Without a type keyword the generated schema accepts any value
+            return new ScalarPlan(kinds == 0 ? -1 : kinds, integer, symbols, type == null ? "any" : String.valueOf(type));
+        }
+    }
+
+    private static Violation expected(String type, JsonNode node) {
+        return new Violation("", "expected " + type + ", got " + Kind.of(node).name().toLowerCase(Locale.ROOT));
+    }
+
+    private static final class ScalarPlan extends Plan {
+        private final int kinds;
+        private final boolean integer;
+        private final Set<String> symbols;
+        private final String type;
+
+        ScalarPlan(int kinds, boolean integer, Set<String> symbols, String type) {
+            this.kinds = kinds;
+            this.integer = integer;
+            this.symbols = symbols;
+            this.type = type;
+        }
+
+        @Override
+        int kinds() {
+            return kinds;
+        }
+
+        @Override
+        Violation check(JsonNode node) {
+            Kind kind = Kind.of(node);
+            if ((kinds & Kind.bit(kind)) == 0) return expected(type, node);
+            if (integer && kind == Kind.NUMBER && !isWhole(node.decimalValue())) return expected(type, node);
+            if (symbols != null && (kind != Kind.STRING || !symbols.contains(node.asString()))) {
+                return new Violation("", "expected one of " + new TreeSet<>(symbols) + ", got " + node);
+            }
+            return null;
+        }
+
+        private static boolean isWhole(BigDecimal value) {
+            return value.signum() == 0 || value.stripTrailingZeros().scale() <= 0;
+        }
+    }
+
+    private static final class ArrayPlan extends Plan {
+        private final Plan items;
+
+        ArrayPlan(Plan items) {
+            this.items = items;
+        }
+
+        @Override
+        int kinds() {
+            return Kind.bit(Kind.ARRAY);
+        }
+
+        @Override
+        Violation check(JsonNode node) {
+            if (!node.isArray()) return expected("array", node);
+            for (int i = 0; i < node.size(); i++) {
+                Violation violation = items.check(node.get(i));
+                if (violation != null) return violation.under(String.valueOf(i));
+            }
+            return null;
+        }
+    }
+
+    private static final class MapPlan extends Plan {
+        private final Plan values;
+
+        MapPlan(Plan values) {
+            this.values = values;
+        }
+
+        @Override
+        int kinds() {
+            return Kind.bit(Kind.OBJECT);
+        }
+
+        @Override
+        Violation check(JsonNode node) {
+            if (!node.isObject()) return expected("object", node);
+            for (Map.Entry<String, JsonNode> e : node.properties()) {
+                Violation violation = values.check(e.getValue());
+                if (violation != null) return violation.under(e.getKey());
+            }
+            return null;
+        }
+    }
+
+    private static final class RecordPlan extends Plan {
+        final Map<String, Plan> fields = new HashMap<>();
+        String[] required;
+
+        @Override
+        int kinds() {
+            return Kind.bit(Kind.OBJECT);
+        }
+
+        @Override
+        Violation check(JsonNode node) {
+            if (!node.isObject()) return expected("object", node);
+            for (String name : required) {
+                if (node.get(name) == null) return new Violation("", "missing required property '" + name + "'");
+            }
+            // Properties without a field are allowed, as the generated schema does not restrict them
+            for (Map.Entry<String, JsonNode> e : node.properties()) {
+                Plan field = fields.get(e.getKey());
+                if (field == null) continue;
+                Violation violation = field.check(e.getValue());
+                if (violation != null) return violation.under(e.getKey());
+            }
+            return null;
+        }
+    }
+
+    private static final class UnionPlan extends Plan {
+        // Branches that may accept a value, by the value's kind
+        private final Plan[][] candidates = new Plan[Kind.values().length][];
+        private final int kinds;
+
+        UnionPlan(List<Plan> branches) {
+            int kinds = 0;
+            for (Kind kind : Kind.values()) {
+                List<Plan> matching = new ArrayList<>();
+                for (Plan branch : branches) {
+                    if ((branch.kinds() & Kind.bit(kind)) != 0) matching.add(branch);
+                }
+                candidates[kind.ordinal()] = matching.toArray(new Plan[0]);
+                if (!matching.isEmpty()) kinds |= Kind.bit(kind);
+            }
+            this.kinds = kinds;
+        }
+
+        @Override
+        int kinds() {
+            return kinds;
+        }
+
+        @Override
+        Violation check(JsonNode node) {
+            Plan[] matching = candidates[Kind.of(node).ordinal()];
+            if (matching.length == 0) return expected(Kind.describe(kinds), node);
+            // A single candidate gives the most precise violation
+            if (matching.length == 1) return matching[0].check(node);
+            for (Plan branch : matching) {
+                if (branch.check(node) == null) return null;
+            }
+            return new Violation("", "none of the " + matching.length + " " + Kind.of(node).name().toLowerCase(Locale.ROOT)
+                    + " branches of the union match");
+        }
+    }
+}
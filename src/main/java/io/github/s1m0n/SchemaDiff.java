@@ -0,0 +1,281 @@
+package io.github.s1m0n;
+
+/*
+ * Copyright 2025 Simon Marksteiner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import org.apache.avro.LogicalType;
+import org.apache.avro.Schema;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Structural differences between the named types of two builds. Every named type is reduced to a shape that refers
+ * to other named types by name only, and shapes are kept between builds by fingerprint, so only types whose own
+ * structure changed are compared.
+ */
+final class SchemaDiff {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Kinds of changes, with whether data valid under the previous type stays valid under the new one
+     * ({@code backward}) and the other way round ({@code forward}).
+     */
+    enum ChangeKind {
+        TYPE_ADDED(true, true),
+        TYPE_REMOVED(false, false),
+        /** The type became a different kind of type, or a fixed type changed its size. */
+        TYPE_CHANGED(false, false),
+        OPTIONAL_FIELD_ADDED(true, true),
+        REQUIRED_FIELD_ADDED(false, true),
+        OPTIONAL_FIELD_REMOVED(true, true),
+        REQUIRED_FIELD_REMOVED(true, false),
+        /** A nullable field is no longer nullable. */
+        FIELD_REQUIRED(false, true),
+        /** A field became nullable. */
+        FIELD_OPTIONAL(true, false),
+        FIELD_TYPE_CHANGED(false, false),
+        UNION_WIDENED(true, false),
+        UNION_NARROWED(false, true),
+        ENUM_WIDENED(true, false),
+        ENUM_NARROWED(false, true);
+
+        final boolean backward;
+        final boolean forward;
+
+        ChangeKind(boolean backward, boolean forward) {
+            this.backward = backward;
+            this.forward = forward;
+        }
+    }
+
+    /**
+     * A record field: its type, the types of its non-null union branches (the type itself if it is no union) and
+     * whether it is required.
+     */
+    record Field(String type, List<String> branches, boolean required) {
+    }
+
+    /**
+     * A named type as compared between builds. Records have fields, enums symbols and fixed types a size.
+     */
+    record Shape(String fingerprint, String kind, Map<String, Field> fields, List<String> symbols, Integer size) {
+    }
+
+    record Snapshot(Map<String, Shape> types) {
+    }
+
+    record Change(String type, ChangeKind change, String field, String detail, boolean backward, boolean forward) {
+        Change(String type, ChangeKind change, String field, String detail) {
+            this(type, change, field, detail, change.backward, change.forward);
+        }
+    }
+
+    /**
+     * @param baseline whether there was no previous snapshot to compare with
+     */
+    record Report(boolean baseline, int types, int changedTypes, int backwardIncompatible, int forwardIncompatible,
+                  List<Change> changes) {
+    }
+
+    private SchemaDiff() {
+    }
+
+    /**
+     * Adds the shapes of all named types in {@code schema} that are not in {@code shapes} yet.
+     */
+    static void collect(Schema schema, AvroToJsonSchemaConverter converter, Map<String, Shape> shapes) {
+        switch (schema.getType()) {
+            case RECORD:
+                if (shapes.containsKey(schema.getFullName())) return;
+                shapes.put(schema.getFullName(), shape(schema, converter));
+                for (Schema.Field f : schema.getFields()) collect(f.schema(), converter, shapes);
+                break;
+            case ENUM:
+            case FIXED:
+                shapes.putIfAbsent(schema.getFullName(), shape(schema, converter));
+                break;
+            case ARRAY:
+                collect(schema.getElementType(), converter, shapes);
+                break;
+            case MAP:
+                collect(schema.getValueType(), converter, shapes);
+                break;
+            case UNION:
+                for (Schema branch : schema.getTypes()) collect(branch, converter, shapes);
+                break;
+            default:
+        }
+    }
+
+    static Shape shape(Schema schema, AvroToJsonSchemaConverter converter) {
+        String kind = schema.getType().getName();
+        Map<String, Field> fields = null;
+        List<String> symbols = null;
+        Integer size = null;
+        StringBuilder canonical = new StringBuilder(kind);
+        switch (schema.getType()) {
+            case RECORD:
+                fields = new LinkedHashMap<>();
+                for (Schema.Field f : schema.getFields()) {
+                    List<String> branches = new ArrayList<>();
+                    for (Schema branch : f.schema().getType() == Schema.Type.UNION ? f.schema().getTypes() : List.of(f.schema())) {
+                        if (branch.getType() != Schema.Type.NULL) branches.add(typeName(branch));
+                    }
+                    Field field = new Field(typeName(f.schema()), branches, !converter.isNullable(f.schema()));
+                    fields.put(f.name(), field);
+                    canonical.append('\n').append(f.name()).append(' ').append(field.type()).append(field.required() ? " required" : "");
+                }
+                break;
+            case ENUM:
+                symbols = List.copyOf(schema.getEnumSymbols());
+                canonical.append('\n').append(String.join(",", symbols));
+                break;
+            case FIXED:
+                size = schema.getFixedSize();
+                canonical.append('\n').append(size);
+                break;
+            default:
+        }
+        return new Shape(BuildState.hash(canonical.toString()), kind, fields, symbols, size);
+    }
+
+    /**
+     * Describes a type without expanding named types, e.g. {@code array<union<null,com.shop.Money>>}.
+     */
+    private static String typeName(Schema schema) {
+        switch (schema.getType()) {
+            case RECORD:
+            case ENUM:
+            case FIXED:
+                return schema.getFullName();
+            case ARRAY:
+                return "array<" + typeName(schema.getElementType()) + ">";
+            case MAP:
+                return "map<" + typeName(schema.getValueType()) + ">";
+            case UNION:
+                StringJoiner branches = new StringJoiner(",", "union<", ">");
+                for (Schema branch : schema.getTypes()) branches.add(typeName(branch));
+                return branches.toString();
+            default:
+                LogicalType logicalType = schema.getLogicalType();
+                return schema.getType().getName() + (logicalType != null ? "(" + logicalType.getName() + ")" : "");
+        }
+    }
+
+    /**
+     * Compares the types of two builds, walking only the types whose fingerprint differs.
+     */
+    static Report diff(Map<String, Shape> previous, Map<String, Shape> current) {
+        List<Change> changes = new ArrayList<>();
+        Set<String> names = new TreeSet<>(previous.keySet());
+        names.addAll(current.keySet());
+        int changedTypes = 0;
+        for (String name : names) {
+            Shape before = previous.get(name);
+            Shape after = current.get(name);
+            if (before != null && after != null && before.fingerprint().equals(after.fingerprint())) continue;
+            changedTypes++;
+            if (before == null) {
+                changes.add(new Change(name, ChangeKind.TYPE_ADDED, null, after.kind()));
+            } else if (after == null) {
+                changes.add(new Change(name, ChangeKind.TYPE_REMOVED, null, before.kind()));
+            } else if (!before.kind().equals(after.kind()) || !Objects.equals(before.size(), after.size())) {
+                changes.add(new Change(name, ChangeKind.TYPE_CHANGED, null, describe(before) + " -> " + describe(after)));
+            } else if (before.fields() != null) {
+                diffFields(name, before.fields(), after.fields(), changes);
+            } else if (before.symbols() != null) {
+                diffMembers(name, null, before.symbols(), after.symbols(), ChangeKind.ENUM_WIDENED, ChangeKind.ENUM_NARROWED, changes);
+            }
+        }
+        int backward = 0;
+        int forward = 0;
+        for (Change change : changes) {
+            if (!change.backward()) backward++;
+            if (!change.forward()) forward++;
+        }
+        return new Report(false, current.size(), changedTypes, backward, forward, changes);
+    }
+
+    private static String describe(Shape shape) {
+        return shape.size() != null ? shape.kind() + "(" + shape.size() + ")" : shape.kind();
+    }
+
+    private static void diffFields(String type, Map<String, Field> before, Map<String, Field> after, List<Change> changes) {
+        for (Map.Entry<String, Field> e : before.entrySet()) {
+            Field old = e.getValue();
+            Field now = after.get(e.getKey());
+            if (now == null) {
+                changes.add(new Change(type, old.required() ? ChangeKind.REQUIRED_FIELD_REMOVED : ChangeKind.OPTIONAL_FIELD_REMOVED,
+                        e.getKey(), old.type()));
+                continue;
+            }
+            if (old.required() != now.required()) {
+                changes.add(new Change(type, now.required() ? ChangeKind.FIELD_REQUIRED : ChangeKind.FIELD_OPTIONAL,
+                        e.getKey(), old.type() + " -> " + now.type()));
+            }
+            if (old.branches().size() <= 1 && now.branches().size() <= 1) {
+                if (!old.branches().equals(now.branches())) {
+                    changes.add(new Change(type, ChangeKind.FIELD_TYPE_CHANGED, e.getKey(), old.type() + " -> " + now.type()));
+                }
+            } else {
+                diffMembers(type, e.getKey(), old.branches(), now.branches(), ChangeKind.UNION_WIDENED, ChangeKind.UNION_NARROWED, changes);
+            }
+        }
+        for (Map.Entry<String, Field> e : after.entrySet()) {
+            if (before.containsKey(e.getKey())) continue;
+            Field field = e.getValue();
+            changes.add(new Change(type, field.required() ? ChangeKind.REQUIRED_FIELD_ADDED : ChangeKind.OPTIONAL_FIELD_ADDED,
+                    e.getKey(), field.type()));
+        }
+    }
+
+    /**
+     * Reports the members (enum symbols or union branches) added and removed between two lists.
+     */
+    private static void diffMembers(String type, String field, List<String> before, List<String> after, ChangeKind widened,
+                                    ChangeKind narrowed, List<Change> changes) {
+        List<String> added = new ArrayList<>(after);
+        added.removeAll(before);
+        List<String> removed = new ArrayList<>(before);
+        removed.removeAll(after);
+        if (!removed.isEmpty()) changes.add(new Change(type, narrowed, field, "removed " + String.join(", ", removed)));
+        if (!added.isEmpty()) changes.add(new Change(type, widened, field, "added " + String.join(", ", added)));
+    }
+
+    /**
+     * Loads the shapes of a previous build, or returns {@code null} if there is no snapshot.
+     */
+    static Map<String, Shape> load(File file) throws IOException {
+        if (!file.isFile()) return null;
+        Snapshot snapshot = MAPPER.readValue(file, Snapshot.class);
+        return snapshot.types() != null ? snapshot.types() : Map.of();
+    }
+
+    static void save(File file, Map<String, Shape> shapes) throws IOException {
+        write(file, new Snapshot(new TreeMap<>(shapes)));
+    }
+
+    static void write(File file, Object value) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Could not create directory: " + parent);
+        }
+        MAPPER.writerWithDefaultPrettyPrinter().writeValue(file, value);
+    }
+}
@@ -0,0 +1,172 @@
+package io.github.s1m0n;
+
+/*
+ * Copyright 2025 Simon Marksteiner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.*;
+
+/**
+ * Dependency graph between Avro schema files, derived from the named types each file defines and references. Used to
+ * parse files in an order where every referenced type has been defined by an earlier file.
+ */
+final class SchemaGraph {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Set<String> PRIMITIVES = Set.of("null", "boolean", "int", "long", "float", "double", "bytes", "string");
+
+    /**
+     * Named types a single schema file defines and the full names of types it uses but does not define itself.
+     */
+    record Node(String id, Set<String> defines, Set<String> references) {
+    }
+
+    private final Map<String, Node> nodes = new LinkedHashMap<>();
+    private final Map<String, String> definedBy = new HashMap<>();
+    private final Map<String, List<String>> referencedBy = new HashMap<>();
+
+    SchemaGraph(Collection<Node> nodes) {
+        for (Node node : nodes) {
+            this.nodes.put(node.id(), node);
+            for (String type : node.defines()) definedBy.putIfAbsent(type, node.id());
+        }
+        for (Node node : nodes) {
+            for (String reference : node.references()) {
+                // Unresolved references stay indexed, so dependents of a deleted type are still found
+                String type = resolve(reference);
+                referencedBy.computeIfAbsent(type != null ? type : reference, k -> new ArrayList<>()).add(node.id());
+            }
+        }
+    }
+
+    /**
+     * Scans the JSON of an Avro schema file for the named types it defines and references, without parsing it as
+     * Avro.
+     */
+    static Node scan(String id, String json) {
+        Set<String> defines = new LinkedHashSet<>();
+        Set<String> references = new LinkedHashSet<>();
+        scan(MAPPER.readTree(json), null, defines, references);
+        references.removeIf(reference -> defines.contains(reference) || defines.contains(simpleName(reference)));
+        return new Node(id, defines, references);
+    }
+
+    private static void scan(JsonNode node, String namespace, Set<String> defines, Set<String> references) {
+        if (node == null) return;
+        if (node.isString()) {
+            String name = node.asString();
+            if (!PRIMITIVES.contains(name)) references.add(qualify(name, namespace));
+        } else if (node.isArray()) {
+            for (JsonNode branch : node) scan(branch, namespace, defines, references);
+        } else if (node.isObject()) {
+            JsonNode type = node.get("type");
+            String typeName = type != null && type.isString() ? type.asString() : null;
+            if ("record".equals(typeName) || "error".equals(typeName) || "enum".equals(typeName) || "fixed".equals(typeName)) {
+                String name = node.path("name").asString();
+                String space = namespace;
+                if (node.hasNonNull("namespace")) space = node.get("namespace").asString();
+                String fullName = qualify(name, space);
+                defines.add(fullName);
+                int lastDot = fullName.lastIndexOf('.');
+                String innerNamespace = lastDot < 0 ? null : fullName.substring(0, lastDot);
+                for (JsonNode field : node.path("fields")) {
+                    scan(field.get("type"), innerNamespace, defines, references);
+                }
+            } else if ("array".equals(typeName)) {
+                scan(node.get("items"), namespace, defines, references);
+            } else if ("map".equals(typeName)) {
+                scan(node.get("values"), namespace, defines, references);
+            } else {
+                scan(type, namespace, defines, references);
+            }
+        }
+    }
+
+    private static String qualify(String name, String namespace) {
+        if (name.indexOf('.') >= 0 || namespace == null || namespace.isEmpty()) return name;
+        return namespace + "." + name;
+    }
+
+    private static String simpleName(String fullName) {
+        return fullName.substring(fullName.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * Resolves a reference like Avro does: a name qualified with the enclosing namespace falls back to the same name
+     * in the null namespace.
+     */
+    private String resolve(String reference) {
+        if (definedBy.containsKey(reference)) return reference;
+        String simple = simpleName(reference);
+        return definedBy.containsKey(simple) ? simple : null;
+    }
+
+    Node node(String id) {
+        return nodes.get(id);
+    }
+
+    /**
+     * Returns the ids of all nodes that reference one of the given types, directly or through types of other
+     * dependent nodes.
+     */
+    Set<String> dependents(Collection<String> types) {
+        Set<String> result = new LinkedHashSet<>();
+        Deque<String> queue = new ArrayDeque<>(types);
+        Set<String> visited = new HashSet<>();
+        while (!queue.isEmpty()) {
+            String type = queue.poll();
+            if (!visited.add(type)) continue;
+            for (String id : referencedBy.getOrDefault(type, List.of())) {
+                if (result.add(id)) queue.addAll(nodes.get(id).defines());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the given ids together with all nodes they depend on, ordered so that every node comes after the
+     * nodes defining the types it references.
+     *
+     * @throws IllegalArgumentException if the files reference each other's types in a cycle
+     */
+    List<String> parseOrder(Collection<String> ids) {
+        List<String> order = new ArrayList<>();
+        Set<String> done = new HashSet<>();
+        List<String> path = new ArrayList<>();
+        for (String id : ids) visit(id, done, path, order);
+        return order;
+    }
+
+    private void visit(String id, Set<String> done, List<String> path, List<String> order) {
+        if (done.contains(id)) return;
+        int cycleStart = path.indexOf(id);
+        if (cycleStart >= 0) {
+            List<String> cycle = new ArrayList<>(path.subList(cycleStart, path.size()));
+            cycle.add(id);
+            throw new IllegalArgumentException("Cyclic named type dependency between schema files: " + String.join(" -> ", cycle));
+        }
+        path.add(id);
+        for (String reference : nodes.get(id).references()) {
+            String type = resolve(reference);
+            if (type != null) visit(definedBy.get(type), done, path, order);
+        }
+        path.removeLast();
+        done.add(id);
+        order.add(id);
+    }
+}
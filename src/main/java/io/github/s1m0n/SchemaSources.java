@@ -0,0 +1,113 @@
+package io.github.s1m0n;
+
+/*
+ * Copyright 2025 Simon Marksteiner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import org.apache.avro.Protocol;
+import org.apache.avro.Schema;
+import org.apache.avro.idl.IdlFile;
+import org.apache.avro.idl.IdlReader;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.node.ArrayNode;
+import tools.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Reads the kinds of Avro source files as schema JSON: schema files ({@code .avsc}) as they are, and protocols
+ * ({@code .avpr}) and IDL files ({@code .avdl}) as a union of all the named types they declare, so each is parsed,
+ * converted and tracked like one schema file and all its types are converted in a single pass. Messages of protocols
+ * are not converted.
+ */
+final class SchemaSources {
+
+    private static final List<String> EXTENSIONS = List.of(".avsc", ".avpr", ".avdl");
+    // Floating point defaults keep their written digits when a protocol is rewritten, for Avro to read them
+    private static final ObjectMapper MAPPER = JsonMapper.builder()
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+            .build();
+
+    private SchemaSources() {
+    }
+
+    /**
+     * Returns a relative name without its source file extension, e.g. {@code shop/order} for {@code shop/order.avsc}.
+     */
+    static String baseName(String relativeName) {
+        for (String extension : EXTENSIONS) {
+            if (relativeName.endsWith(extension)) return relativeName.substring(0, relativeName.length() - extension.length());
+        }
+        return relativeName;
+    }
+
+    /**
+     * Returns the schema JSON of a source file.
+     *
+     * @param content the content of the file
+     */
+    static String schemaJson(SourceFile source, String content) throws IOException {
+        String name = source.relativeName();
+        if (name.endsWith(".avpr")) return protocolTypes(content);
+        if (name.endsWith(".avdl")) return idlTypes(source, content);
+        return content;
+    }
+
+    /**
+     * Rewrites the JSON of a protocol into the union of its types. Types keep the protocol namespace as their
+     * default, and may still refer to types of other files like a schema file can.
+     */
+    static String protocolTypes(String json) {
+        JsonNode protocol = MAPPER.readTree(json);
+        if (!protocol.isObject() || !protocol.has("protocol")) {
+            throw new IllegalArgumentException("Not an Avro protocol, 'protocol' is missing");
+        }
+        JsonNode namespace = protocol.get("namespace");
+        ArrayNode union = MAPPER.createArrayNode();
+        for (JsonNode type : protocol.path("types")) {
+            if (type instanceof ObjectNode object && namespace != null && namespace.isString() && !object.has("namespace")
+                    && !object.path("name").asString().contains(".")) {
+                ObjectNode qualified = object.deepCopy();
+                qualified.set("namespace", namespace);
+                union.add(qualified);
+            } else {
+                union.add(type);
+            }
+        }
+        return MAPPER.writeValueAsString(union);
+    }
+
+    /**
+     * Parses an IDL file, resolving its imports relative to the file, and returns its main schema if it declares one,
+     * otherwise the union of its named types.
+     */
+    static String idlTypes(SourceFile source, String content) throws IOException {
+        IdlFile idl = new IdlReader().parse(source.path().toUri(), content);
+        Protocol protocol = idl.getProtocol();
+        if (protocol != null) return union(protocol.getTypes());
+        if (idl.getMainSchema() != null) return idl.getMainSchema().toString();
+        return union(idl.getNamedSchemas().values());
+    }
+
+    private static String union(Collection<Schema> types) {
+        // Serialized once, so types used by several others are defined once and referenced by name afterwards
+        return Schema.createUnion(new ArrayList<>(types)).toString();
+    }
+}
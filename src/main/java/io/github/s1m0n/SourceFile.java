@@ -0,0 +1,33 @@
+package io.github.s1m0n;
+
+/*
+ * Copyright 2025 Simon Marksteiner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+
+/**
+ * A schema file found below the input, with the size and modification time seen when it was found. The path is an
+ * entry of a zip file system when the input is an archive.
+ */
+record SourceFile(Path path, String relativeName, long size, long lastModified) {
+
+    /**
+     * Returns where the file is, for messages: its path, or its {@code jar:} URI inside an archive.
+     */
+    String location() {
+        return path.getFileSystem() == FileSystems.getDefault() ? path.toString() : path.toUri().toString();
+    }
+}
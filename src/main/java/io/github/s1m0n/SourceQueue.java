@@ -0,0 +1,110 @@
+package io.github.s1m0n;
+
+/*
+ * Copyright 2025 Simon Marksteiner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.function.LongConsumer;
+
+/**
+ * Discovers schema files on a background thread and hands them out in discovery order through a bounded queue. The
+ * scan blocks while {@code capacity} files wait for conversion, so it never runs far ahead and the complete list of
+ * files is never held in memory.
+ */
+final class SourceQueue implements Iterator<SourceFile>, AutoCloseable {
+
+    private static final SourceFile END = new SourceFile(null, null, 0, 0);
+
+    private final BlockingQueue<SourceFile> queue;
+    private final Thread thread;
+    private volatile RuntimeException failure;
+    private SourceFile next;
+
+    /**
+     * Starts scanning {@code root}.
+     *
+     * @param onFinished receives the nanoseconds the scan took, on the scanning thread
+     */
+    SourceQueue(SourceScanner scanner, Path root, int capacity, LongConsumer onFinished) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.thread = new Thread(() -> {
+            long start = System.nanoTime();
+            try {
+                scanner.scan(root, this::put);
+            } catch (IOException e) {
+                failure = new UncheckedIOException(e);
+            } catch (CancellationException e) {
+                return;
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+            onFinished.accept(System.nanoTime() - start);
+            put(END);
+        }, "avro-to-json-scanner");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void put(SourceFile source) {
+        try {
+            queue.put(source);
+        } catch (InterruptedException e) {
+            // Closed by the consumer; abandon the walk
+            throw new CancellationException();
+        }
+    }
+
+    /**
+     * @throws UncheckedIOException if the scan failed reading a directory
+     */
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UncheckedIOException(new InterruptedIOException("Interrupted while scanning for schemas"));
+            }
+        }
+        if (next == END) {
+            if (failure != null) throw failure;
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public SourceFile next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        SourceFile source = next;
+        next = null;
+        return source;
+    }
+
+    @Override
+    public void close() {
+        thread.interrupt();
+    }
+}
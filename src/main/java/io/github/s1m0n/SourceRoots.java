@@ -0,0 +1,109 @@
+package io.github.s1m0n;
+
+/*
+ * Copyright 2025 Simon Marksteiner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Opens the directories schema files are scanned from when they are not plain directories: the root of a jar or zip
+ * archive, or a resource directory in every entry of a class path. Archives are read in place through the zip file
+ * system provider, without extracting them, and stay open until this is closed.
+ */
+final class SourceRoots implements Closeable {
+
+    private final List<FileSystem> archives = new ArrayList<>();
+
+    /**
+     * Whether {@code file} is a jar or zip archive to scan instead of a single schema file.
+     */
+    static boolean isArchive(File file) {
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        return (name.endsWith(".jar") || name.endsWith(".zip")) && file.isFile();
+    }
+
+    /**
+     * Opens an archive and returns its root directory.
+     */
+    Path archive(Path file) throws IOException {
+        FileSystem fs = FileSystems.newFileSystem(file);
+        archives.add(fs);
+        return fs.getPath("/");
+    }
+
+    /**
+     * Returns the directory {@code resource} of every class path entry of {@code loader} that contains it, in class
+     * path order. Inside jars, the directory is only found if the jar has an entry for it, as jars built by Maven do.
+     *
+     * @throws IOException if the resource is not a directory in a directory or jar entry of the class path
+     */
+    List<Path> classpath(ClassLoader loader, String resource) throws IOException {
+        String name = resource.replace('\\', '/');
+        while (name.startsWith("/")) name = name.substring(1);
+        List<Path> roots = new ArrayList<>();
+        Enumeration<URL> urls = loader.getResources(name);
+        while (urls.hasMoreElements()) {
+            URL url = urls.nextElement();
+            Path root;
+            try {
+                if ("file".equals(url.getProtocol())) {
+                    root = Path.of(url.toURI());
+                } else if ("jar".equals(url.getProtocol())) {
+                    JarURLConnection connection = (JarURLConnection) url.openConnection();
+                    root = archive(Path.of(connection.getJarFileURL().toURI())).resolve(connection.getEntryName());
+                } else {
+                    throw new IOException("Unsupported class path entry for " + resource + ": " + url);
+                }
+            } catch (URISyntaxException e) {
+                throw new IOException("Invalid class path entry for " + resource + ": " + url, e);
+            }
+            if (!Files.isDirectory(root)) {
+                throw new IOException("Class path resource " + resource + " is not a directory: " + url);
+            }
+            roots.add(root);
+        }
+        return roots;
+    }
+
+    /**
+     * Closes the archives opened so far; sources found in them cannot be read anymore.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (FileSystem fs : archives) {
+            try {
+                fs.close();
+            } catch (IOException e) {
+                if (failure == null) failure = e; else failure.addSuppressed(e);
+            }
+        }
+        archives.clear();
+        if (failure != null) throw failure;
+    }
+}
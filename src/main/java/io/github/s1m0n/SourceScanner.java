@@ -0,0 +1,140 @@
+package io.github.s1m0n;
+
+/*
+ * Copyright 2025 Simon Marksteiner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Finds schema files below a root directory with a single {@link Files#walkFileTree} pass. File attributes come from
+ * the walk itself and relative names are derived from the walk root, so no file is inspected twice.
+ */
+final class SourceScanner {
+
+    static final String DEFAULT_INCLUDE = "**/*.avsc";
+
+    private final List<String> includePatterns;
+    private final List<String> excludePatterns;
+    private final List<PathMatcher> includes;
+    private final List<PathMatcher> excludes;
+    private final boolean recursive;
+    private final boolean followSymlinks;
+    private final int limit;
+    private final Consumer<String> warnings;
+
+    /**
+     * @param includes       glob patterns of files to include, relative to the root; {@code **}{@code /} also matches
+     *                       no directory at all. Defaults to {@value #DEFAULT_INCLUDE} if empty
+     * @param excludes       glob patterns of files and directories to skip
+     * @param followSymlinks whether to follow symbolic links; links that lead back into a parent are skipped
+     * @param limit          stop scanning after this many files plus one, so the caller can report the limit;
+     *                       {@code 0} for no limit
+     */
+    SourceScanner(List<String> includes, List<String> excludes, boolean recursive, boolean followSymlinks, int limit,
+                  Consumer<String> warnings) {
+        this.includePatterns = includes == null || includes.isEmpty() ? List.of(DEFAULT_INCLUDE) : includes;
+        this.excludePatterns = excludes == null ? List.of() : excludes;
+        this.includes = matchers(FileSystems.getDefault(), includePatterns);
+        this.excludes = matchers(FileSystems.getDefault(), excludePatterns);
+        this.recursive = recursive;
+        this.followSymlinks = followSymlinks;
+        this.limit = limit;
+        this.warnings = warnings;
+    }
+
+    private static List<PathMatcher> matchers(FileSystem fs, List<String> patterns) {
+        List<PathMatcher> matchers = new ArrayList<>();
+        for (String pattern : patterns) {
+            String glob = pattern.trim().replace('\\', '/');
+            if (glob.isEmpty()) continue;
+            matchers.add(fs.getPathMatcher("glob:" + glob));
+            // Like Ant and Maven patterns, a leading **/ also matches files directly in the root
+            while (glob.startsWith("**/")) {
+                glob = glob.substring(3);
+                matchers.add(fs.getPathMatcher("glob:" + glob));
+            }
+        }
+        return matchers;
+    }
+
+    private static boolean matches(List<PathMatcher> matchers, Path relative) {
+        for (PathMatcher matcher : matchers) {
+            if (matcher.matches(relative)) return true;
+        }
+        return false;
+    }
+
+    List<SourceFile> scan(Path root) throws IOException {
+        List<SourceFile> sources = new ArrayList<>();
+        scan(root, sources::add);
+        return sources;
+    }
+
+    /**
+     * Hands every schema file below {@code root} to {@code sink} as soon as the walk reaches it.
+     */
+    void scan(Path root, Consumer<SourceFile> sink) throws IOException {
+        // Paths inside an archive are only matched reliably by the archive's own file system
+        FileSystem fs = root.getFileSystem();
+        List<PathMatcher> includes = fs == FileSystems.getDefault() ? this.includes : matchers(fs, includePatterns);
+        List<PathMatcher> excludes = fs == FileSystems.getDefault() ? this.excludes : matchers(fs, excludePatterns);
+        int[] found = new int[1];
+        Set<FileVisitOption> options = followSymlinks ? EnumSet.of(FileVisitOption.FOLLOW_LINKS) : EnumSet.noneOf(FileVisitOption.class);
+        Files.walkFileTree(root, options, recursive ? Integer.MAX_VALUE : 1, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                Path relative = root.relativize(dir);
+                return relative.toString().isEmpty() || !matches(excludes, relative)
+                        ? FileVisitResult.CONTINUE : FileVisitResult.SKIP_SUBTREE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (!attrs.isRegularFile()) return FileVisitResult.CONTINUE;
+                Path relative = root.relativize(file);
+                if (matches(includes, relative) && !matches(excludes, relative)) {
+                    // Relative names are used in bundles and indexes, so they look the same on every platform
+                    sink.accept(new SourceFile(file, relative.toString().replace(File.separatorChar, '/'), attrs.size(),
+                            attrs.lastModifiedTime().toMillis()));
+                    if (limit > 0 && ++found[0] > limit) return FileVisitResult.TERMINATE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+                if (e instanceof FileSystemLoopException) {
+                    warnings.accept("Skipping symbolic link loop at " + file);
+                    return FileVisitResult.CONTINUE;
+                }
+                throw e;
+            }
+        });
+    }
+
+    /**
+     * Describes a single input file.
+     */
+    static SourceFile file(File file) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+        return new SourceFile(file.toPath(), file.getName(), attrs.size(), attrs.lastModifiedTime().toMillis());
+    }
+}
@@ -0,0 +1,95 @@
+package io.github.s1m0n;
+
+/*
+ * Copyright 2025 Simon Marksteiner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches a directory tree with a {@link WatchService} and reports changed paths in batches. Directories created while
+ * watching are registered as they appear.
+ */
+final class SourceWatcher implements Closeable {
+
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    private final boolean recursive;
+
+    SourceWatcher(Path root, boolean recursive) throws IOException {
+        this.watchService = root.getFileSystem().newWatchService();
+        this.recursive = recursive;
+        register(root);
+    }
+
+    private void register(Path directory) throws IOException {
+        if (!recursive) {
+            directories.put(directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), directory);
+            return;
+        }
+        Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                directories.put(dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Blocks until at least one path changed and then keeps collecting until no further event arrives for
+     * {@code quietMillis}, so a save that touches a file several times is reported once.
+     *
+     * @return the changed paths, or an empty set if {@code timeoutMillis} passed without any change
+     */
+    Set<Path> awaitChanges(long timeoutMillis, long quietMillis) throws IOException, InterruptedException {
+        Set<Path> changed = new LinkedHashSet<>();
+        WatchKey key = watchService.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        while (key != null) {
+            collect(key, changed);
+            key = watchService.poll(quietMillis, TimeUnit.MILLISECONDS);
+        }
+        return changed;
+    }
+
+    private void collect(WatchKey key, Set<Path> changed) throws IOException {
+        Path directory = directories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW || directory == null) {
+                // Events were lost; report the directory so the caller rescans it
+                if (directory != null) changed.add(directory);
+                continue;
+            }
+            Path path = directory.resolve((Path) event.context());
+            changed.add(path);
+            if (recursive && event.kind() == ENTRY_CREATE && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                register(path);
+            }
+        }
+        if (!key.reset()) directories.remove(key);
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+}
@@ -0,0 +1,88 @@
+package io.github.s1m0n;
+
+/*
+ * Copyright 2025 Simon Marksteiner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Exclusive lock on a build state directory, held while a build reads and writes its state. Serializes executions
+ * sharing the directory both within one JVM, e.g. modules of a {@code mvn -T} build, and across processes through a
+ * lock file.
+ */
+final class StateDirectoryLock implements AutoCloseable {
+
+    static final String LOCK_FILE = ".lock";
+
+    // File locks are held by the whole JVM, so threads of the same build have to be serialized separately
+    private static final ConcurrentHashMap<Path, ReentrantLock> LOCKS = new ConcurrentHashMap<>();
+
+    private final ReentrantLock threadLock;
+    private final FileChannel channel;
+    private final FileLock fileLock;
+
+    private StateDirectoryLock(ReentrantLock threadLock, FileChannel channel, FileLock fileLock) {
+        this.threadLock = threadLock;
+        this.channel = channel;
+        this.fileLock = fileLock;
+    }
+
+    /**
+     * Locks {@code directory}, creating it if needed, and waits as long as another build holds the lock.
+     */
+    static StateDirectoryLock acquire(Path directory, Log log) throws IOException {
+        Path dir = directory.toAbsolutePath().normalize();
+        Files.createDirectories(dir);
+        ReentrantLock threadLock = LOCKS.computeIfAbsent(dir, k -> new ReentrantLock());
+        if (!threadLock.tryLock()) {
+            log.info("Waiting for another build to release " + dir);
+            threadLock.lock();
+        }
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(dir.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock fileLock = channel.tryLock();
+            if (fileLock == null) {
+                log.info("Waiting for another process to release " + dir);
+                fileLock = channel.lock();
+            }
+            return new StateDirectoryLock(threadLock, channel, fileLock);
+        } catch (IOException | RuntimeException e) {
+            if (channel != null) channel.close();
+            threadLock.unlock();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            fileLock.release();
+            channel.close();
+        } finally {
+            threadLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package io.github.s1m0n;
+
+/*
+ * Copyright 2025 Simon Marksteiner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.apache.avro.Schema;
+import tools.jackson.core.JsonGenerator;
+
+import java.util.*;
+
+/**
+ * Writes the JSON Schema for an Avro schema token by token to a {@link JsonGenerator}, without building the
+ * intermediate map tree of {@link AvroToJsonSchemaConverter#convert}. The written document is identical to
+ * serializing the result of {@code convert} with the same generator settings.
+ */
+final class StreamingSchemaWriter {
+
+    private final AvroToJsonSchemaConverter converter;
+
+    StreamingSchemaWriter(AvroToJsonSchemaConverter converter) {
+        this.converter = converter;
+    }
+
+    /**
+     * Field level keys that {@code convert} adds to the schema of a record field.
+     */
+    private record Extras(String description, Schema.Field withDefault) {
+        static final Extras NONE = new Extras(null, null);
+    }
+
+    /**
+     * Named types of one document, collected up front so definitions can be written after the root while keeping the
+     * order and the {@code $ref} placement of the tree based conversion.
+     */
+    private static final class Plan {
+        final String rootName;
+        final Map<String, Schema> named = new HashMap<>();
+        final List<String> definitions = new ArrayList<>();
+        // Inline mode: named types that were in progress when a type was converted for the first time
+        final Map<String, Set<String>> enclosing = new HashMap<>();
+
+        Plan(Schema root) {
+            this.rootName = AvroToJsonSchemaConverter.isNamed(root) ? root.getFullName() : null;
+        }
+    }
+
+    /**
+     * Writes the document. Nested schemas are written through an explicit stack of steps instead of recursion, so the
+     * nesting depth of a schema is not limited by the thread stack: a method writes what it can right away and pushes
+     * the rest, and only calls into a nested schema as its last action.
+     */
+    void write(Schema schema, JsonGenerator gen) {
+        Plan plan = plan(schema);
+        JsonSchemaDraft draft = converter.draft();
+        Deque<Runnable> steps = new ArrayDeque<>();
+        gen.writeStartObject();
+        gen.writeStringProperty("$schema", draft.uri());
+        List<Runnable> next = new ArrayList<>();
+        next.add(() -> {
+            if (plan.rootName != null) {
+                writeAnchor(draft, plan.rootName, gen);
+                writeNodeFields(schema, plan, Set.of(plan.rootName), gen, Extras.NONE, false, steps);
+            } else {
+                writeSchemaFields(schema, plan, Set.of(), gen, Extras.NONE, false, steps);
+            }
+        });
+        if (!plan.definitions.isEmpty()) {
+            next.add(() -> {
+                gen.writeName(draft.definitions());
+                gen.writeStartObject();
+            });
+            for (String name : plan.definitions) {
+                next.add(() -> {
+                    gen.writeName(name);
+                    gen.writeStartObject();
+                    writeAnchor(draft, name, gen);
+                    writeNodeFields(plan.named.get(name), plan, inProgress(plan, name), gen, Extras.NONE, false, steps);
+                });
+                next.add(gen::writeEndObject);
+            }
+            next.add(gen::writeEndObject);
+        }
+        next.add(gen::writeEndObject);
+        then(steps, next);
+        while (!steps.isEmpty()) steps.pop().run();
+    }
+
+    /**
+     * Schedules {@code next} to run in order, before the steps scheduled so far.
+     */
+    private static void then(Deque<Runnable> steps, List<Runnable> next) {
+        for (int i = next.size() - 1; i >= 0; i--) steps.push(next.get(i));
+    }
+
+    private static void writeAnchor(JsonSchemaDraft draft, String name, JsonGenerator gen) {
+        String anchor = draft.anchor(name);
+        if (anchor != null) gen.writeStringProperty("$anchor", anchor);
+    }
+
+    private Set<String> inProgress(Plan plan, String name) {
+        if (converter.useReferences()) return Set.of();
+        Set<String> inProgress = new HashSet<>(plan.enclosing.get(name));
+        inProgress.add(name);
+        return inProgress;
+    }
+
+    private Plan plan(Schema root) {
+        Plan plan = new Plan(root);
+        Set<String> seen = new HashSet<>();
+        Set<String> inProgress = new HashSet<>();
+        Set<String> definitions = new HashSet<>();
+        if (plan.rootName != null) {
+            plan.named.put(plan.rootName, root);
+            seen.add(plan.rootName);
+            inProgress.add(plan.rootName);
+        }
+        Deque<Runnable> steps = new ArrayDeque<>();
+        List<Runnable> next = new ArrayList<>();
+        for (Schema child : plan.rootName != null ? children(root) : List.of(root)) {
+            if (converter.useReferences()) {
+                next.add(() -> collectReferenced(child, plan, seen, steps));
+            } else {
+                next.add(() -> collectRecursive(child, plan, inProgress, definitions, seen, steps));
+            }
+        }
+        then(steps, next);
+        while (!steps.isEmpty()) steps.pop().run();
+        return plan;
+    }
+
+    /**
+     * Reference mode: every named type except the root becomes a definition, in first-encounter order.
+     */
+    private void collectReferenced(Schema schema, Plan plan, Set<String> seen, Deque<Runnable> steps) {
+        if (AvroToJsonSchemaConverter.isNamed(schema)) {
+            String name = schema.getFullName();
+            if (!seen.add(name)) return;
+            plan.named.put(name, schema);
+            plan.definitions.add(name);
+        }
+        List<Runnable> next = new ArrayList<>();
+        for (Schema child : children(schema)) next.add(() -> collectReferenced(child, plan, seen, steps));
+        then(steps, next);
+    }
+
+    /**
+     * Inline mode: replays the memoized conversion to find the recursive types that become definitions and the
+     * types in progress when each named type was first converted.
+     */
+    private void collectRecursive(Schema schema, Plan plan, Set<String> inProgress, Set<String> definitions,
+                                  Set<String> converted, Deque<Runnable> steps) {
+        List<Runnable> next = new ArrayList<>();
+        if (AvroToJsonSchemaConverter.isNamed(schema)) {
+            String name = schema.getFullName();
+            if (inProgress.contains(name)) {
+                if (!name.equals(plan.rootName) && definitions.add(name)) plan.definitions.add(name);
+                return;
+            }
+            if (!converted.add(name)) return;
+            plan.named.put(name, schema);
+            plan.enclosing.put(name, new HashSet<>(inProgress));
+            inProgress.add(name);
+            for (Schema child : children(schema)) {
+                next.add(() -> collectRecursive(child, plan, inProgress, definitions, converted, steps));
+            }
+            next.add(() -> inProgress.remove(name));
+        } else {
+            for (Schema child : children(schema)) {
+                next.add(() -> collectRecursive(child, plan, inProgress, definitions, converted, steps));
+            }
+        }
+        then(steps, next);
+    }
+
+    private static List<Schema> children(Schema schema) {
+        switch (schema.getType()) {
+            case RECORD:
+                List<Schema> fields = new ArrayList<>(schema.getFields().size());
+                for (Schema.Field f : schema.getFields()) fields.add(f.schema());
+                return fields;
+            case ARRAY:
+                return List.of(schema.getElementType());
+            case MAP:
+                return List.of(schema.getValueType());
+            case UNION:
+                return schema.getTypes();
+            default:
+                return List.of();
+        }
+    }
+
+    /**
+     * Returns the {@code $ref} target used for the schema at this position, or {@code null} if it is written inline.
+     */
+    private String referenceTarget(Schema schema, Plan plan, Set<String> inProgress) {
+        if (!AvroToJsonSchemaConverter.isNamed(schema)) return null;
+        String name = schema.getFullName();
+        if (name.equals(plan.rootName)) return "#";
+        if (converter.useReferences() || inProgress.contains(name)) return converter.draft().reference(name);
+        return null;
+    }
+
+    private void writeSchema(Schema schema, Plan plan, Set<String> inProgress, JsonGenerator gen, Extras extras,
+                             boolean nullable, Deque<Runnable> steps) {
+        gen.writeStartObject();
+        steps.push(gen::writeEndObject);
+        writeSchemaFields(schema, plan, inProgress, gen, extras, nullable, steps);
+    }
+
+    private void writeSchemaFields(Schema schema, Plan plan, Set<String> inProgress, JsonGenerator gen, Extras extras,
+                                   boolean nullable, Deque<Runnable> steps) {
+        String target = referenceTarget(schema, plan, inProgress);
+        if (target != null) {
+            gen.writeStringProperty("$ref", target);
+            writeExtras(gen, extras, false);
+        } else if (AvroToJsonSchemaConverter.isNamed(schema)) {
+            writeNodeFields(schema, plan, inProgress(plan, schema.getFullName()), gen, extras, nullable, steps);
+        } else {
+            writeNodeFields(schema, plan, inProgress, gen, extras, nullable, steps);
+        }
+    }
+
+    private void writeNodeFields(Schema schema, Plan plan, Set<String> inProgress, JsonGenerator gen, Extras extras,
+                                 boolean nullable, Deque<Runnable> steps) {
+        boolean descriptionWritten = writeDescription(schema, gen, extras);
+        Runnable writeExtras = () -> writeExtras(gen, extras, descriptionWritten);
+        switch (schema.getType()) {
+            case ARRAY:
+                writeType(gen, "array", nullable);
+                gen.writeName("items");
+                steps.push(writeExtras);
+                writeSchema(schema.getElementType(), plan, inProgress, gen, Extras.NONE, false, steps);
+                return;
+            case MAP:
+                writeType(gen, "object", nullable);
+                gen.writeName("additionalProperties");
+                steps.push(writeExtras);
+                writeSchema(schema.getValueType(), plan, inProgress, gen, Extras.NONE, false, steps);
+                return;
+            case RECORD:
+                writeType(gen, "object", nullable);
+                gen.writeName("properties");
+                gen.writeStartObject();
+                List<String> required = new ArrayList<>();
+                List<Runnable> next = new ArrayList<>();
+                for (Schema.Field f : schema.getFields()) {
+                    String doc = f.doc() != null && !f.doc().isEmpty() ? f.doc() : null;
+                    Schema.Field withDefault = f.hasDefaultValue() ? f : null;
+                    Extras fieldExtras = doc != null || withDefault != null ? new Extras(doc, withDefault) : Extras.NONE;
+                    next.add(() -> {
+                        gen.writeName(f.name());
+                        writeSchema(f.schema(), plan, inProgress, gen, fieldExtras, false, steps);
+                    });
+                    if (!converter.isNullable(f.schema())) required.add(f.name());
+                }
+                next.add(() -> {
+                    gen.writeEndObject();
+                    if (!required.isEmpty()) {
+                        gen.writeName("required");
+                        gen.writeStartArray();
+                        for (String name : required) gen.writeString(name);
+                        gen.writeEndArray();
+                    }
+                });
+                next.add(writeExtras);
+                then(steps, next);
+                return;
+            case UNION:
+                List<Schema> nonNullTypes = new ArrayList<>();
+                for (Schema t : schema.getTypes()) if (t.getType() != Schema.Type.NULL) nonNullTypes.add(t);
+                boolean hasNull = nonNullTypes.size() < schema.getTypes().size();
+                if (hasNull && nonNullTypes.size() == 1) {
+                    Schema base = nonNullTypes.getFirst();
+                    Extras baseExtras = descriptionWritten ? Extras.NONE : extras;
+                    // Records, arrays and maps have a single "type" that can be widened, scalars if their mapper gave one
+                    if (referenceTarget(base, plan, inProgress) == null) {
+                        if (base.getType() == Schema.Type.RECORD || base.getType() == Schema.Type.ARRAY
+                                || base.getType() == Schema.Type.MAP) {
+                            writeSchemaFields(base, plan, inProgress, gen, baseExtras, true, steps);
+                            return;
+                        }
+                        if (base.getType() != Schema.Type.UNION) {
+                            Map<String, Object> attributes = scalarAttributes(base);
+                            if (attributes.get("type") instanceof String) {
+                                boolean baseDescriptionWritten = writeDescription(base, gen, baseExtras);
+                                writeAttributes(gen, attributes, true);
+                                writeExtras(gen, baseExtras, baseDescriptionWritten);
+                                return;
+                            }
+                        }
+                    }
+                }
+                gen.writeName("anyOf");
+                gen.writeStartArray();
+                List<Runnable> branches = new ArrayList<>();
+                for (Schema t : nonNullTypes) branches.add(() -> writeSchema(t, plan, inProgress, gen, Extras.NONE, false, steps));
+                branches.add(() -> {
+                    if (hasNull) {
+                        gen.writeStartObject();
+                        gen.writeStringProperty("type", "null");
+                        gen.writeEndObject();
+                    }
+                    gen.writeEndArray();
+                });
+                branches.add(writeExtras);
+                then(steps, branches);
+                return;
+            default:
+                writeAttributes(gen, scalarAttributes(schema), nullable);
+                writeExtras.run();
+        }
+    }
+
+    private static boolean writeDescription(Schema schema, JsonGenerator gen, Extras extras) {
+        if (schema.getDoc() == null || schema.getDoc().isEmpty()) return false;
+        gen.writeStringProperty("description", extras.description() != null ? extras.description() : schema.getDoc());
+        return true;
+    }
+
+    private Map<String, Object> scalarAttributes(Schema schema) {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        converter.putScalarAttributes(schema, attributes);
+        return attributes;
+    }
+
+    private static void writeAttributes(JsonGenerator gen, Map<String, Object> attributes, boolean nullable) {
+        for (Map.Entry<String, Object> e : attributes.entrySet()) {
+            if ("type".equals(e.getKey()) && e.getValue() instanceof String type) {
+                writeType(gen, type, nullable);
+            } else {
+                gen.writePOJOProperty(e.getKey(), e.getValue());
+            }
+        }
+    }
+
+    private static void writeType(JsonGenerator gen, String type, boolean nullable) {
+        if (nullable) {
+            gen.writeName("type");
+            gen.writeStartArray();
+            gen.writeString(type);
+            gen.writeString("null");
+            gen.writeEndArray();
+        } else {
+            gen.writeStringProperty("type", type);
+        }
+    }
+
+    private static void writeExtras(JsonGenerator gen, Extras extras, boolean descriptionWritten) {
+        if (!descriptionWritten && extras.description() != null) {
+            gen.writeStringProperty("description", extras.description());
+        }
+        if (extras.withDefault() != null) {
+            gen.writeName("default");
+            AvroDefaultValues.write(extras.withDefault(), gen);
+        }
+    }
+}
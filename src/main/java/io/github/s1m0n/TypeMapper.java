@@ -0,0 +1,36 @@
+package io.github.s1m0n;
+
+/*
+ * Copyright 2025 Simon Marksteiner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.apache.avro.Schema;
+
+import java.util.Map;
+
+/**
+ * Maps an Avro schema that does not contain other schemas (a primitive, enum or fixed, optionally with a logical type)
+ * to JSON Schema keywords. Registered through {@link AvroToJsonSchemaConverter.Builder}.
+ */
+@FunctionalInterface
+public interface TypeMapper {
+
+    /**
+     * Puts the JSON Schema keywords for {@code schema} into {@code node}, which already holds the description of the
+     * schema if it has one. A single string {@code type} keyword lets nullable unions be written as a type array;
+     * otherwise they are written as {@code anyOf}.
+     */
+    void map(Schema schema, Map<String, Object> node);
+}
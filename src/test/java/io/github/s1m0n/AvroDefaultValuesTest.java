@@ -0,0 +1,74 @@
+package io.github.s1m0n;
+
+import org.apache.avro.Schema;
+import org.junit.jupiter.api.Test;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pins the defaults read through Avro's internal accessor, and why the public {@link Schema.Field#defaultVal()} is not
+ * used instead. If an Avro upgrade breaks one of these, revisit {@link AvroDefaultValues}.
+ */
+public class AvroDefaultValuesTest {
+
+    private static final Schema RECORD = new Schema.Parser().parse("{ \"type\": \"record\", \"name\": \"D\", \"fields\": [\n" +
+            "  { \"name\": \"ratio\", \"type\": \"double\", \"default\": 1 },\n" +
+            "  { \"name\": \"big\", \"type\": \"long\", \"default\": 9007199254740993 },\n" +
+            "  { \"name\": \"raw\", \"type\": \"bytes\", \"default\": \"\\u00ff\" },\n" +
+            "  { \"name\": \"tags\", \"type\": { \"type\": \"map\", \"values\": { \"type\": \"array\", \"items\": \"long\" } },\n" +
+            "    \"default\": { \"b\": [1, 2], \"a\": [] } },\n" +
+            "  { \"name\": \"note\", \"type\": [\"null\", \"string\"], \"default\": null }\n" +
+            "] }");
+
+    private static final String JSON = "{\"ratio\":1,\"big\":9007199254740993,\"raw\":\"\u00ff\"," +
+            "\"tags\":{\"b\":[1,2],\"a\":[]},\"note\":null}";
+
+    @Test
+    void defaultsAreReadAsWritten() {
+        assertEquals(1, AvroDefaultValues.toJava(RECORD.getField("ratio")));
+        assertEquals(9007199254740993L, AvroDefaultValues.toJava(RECORD.getField("big")));
+        assertEquals("\u00ff", AvroDefaultValues.toJava(RECORD.getField("raw")));
+        assertEquals(Map.of("b", List.of(1, 2), "a", List.of()), AvroDefaultValues.toJava(RECORD.getField("tags")));
+        assertEquals(List.of("b", "a"), List.copyOf(((Map<?, ?>) AvroDefaultValues.toJava(RECORD.getField("tags"))).keySet()));
+        assertNull(AvroDefaultValues.toJava(RECORD.getField("note")));
+
+        Schema.Field exact = new Schema.Field("amount", Schema.create(Schema.Type.DOUBLE), null,
+                new BigDecimal("12345678901234567890.123456789"));
+        assertEquals(new BigDecimal("12345678901234567890.123456789"), AvroDefaultValues.toJava(exact));
+        assertEquals("12345678901234567890.123456789", AvroDefaultValues.json(exact));
+    }
+
+    @Test
+    void defaultsAreWrittenAsWritten() {
+        StringBuilder json = new StringBuilder("{");
+        StringWriter written = new StringWriter();
+        try (JsonGenerator gen = new ObjectMapper().createGenerator(written)) {
+            gen.writeStartObject();
+            for (Schema.Field f : RECORD.getFields()) {
+                if (json.length() > 1) json.append(',');
+                json.append('"').append(f.name()).append("\":").append(AvroDefaultValues.json(f));
+                gen.writeName(f.name());
+                AvroDefaultValues.write(f, gen);
+            }
+            gen.writeEndObject();
+        }
+        assertEquals(JSON, json.append('}').toString());
+        assertEquals(JSON, written.toString());
+    }
+
+    @Test
+    void publicDefaultValuesLoseTheWrittenRepresentation() {
+        assertEquals(1.0, RECORD.getField("ratio").defaultVal());
+        // A decimal default given as a BigDecimal is dropped altogether
+        assertNull(new Schema.Field("amount", Schema.create(Schema.Type.DOUBLE), null,
+                new BigDecimal("12345678901234567890.123456789")).defaultVal());
+        assertArrayEquals(new byte[]{(byte) 0xff}, (byte[]) RECORD.getField("raw").defaultVal());
+    }
+}
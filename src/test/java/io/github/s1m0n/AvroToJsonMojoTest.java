@@ -0,0 +1,420 @@
+package io.github.s1m0n;
+
+import org.apache.avro.Schema;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AvroToJsonMojoTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void incrementalBuildReconvertsChangedSchemasAndTheirDependents() throws Exception {
+        Path input = Files.createDirectories(dir.resolve("avro"));
+        Path output = dir.resolve("json");
+        Files.writeString(input.resolve("a.avsc"), record("A", "{ \"name\": \"id\", \"type\": \"long\" }"));
+        Files.writeString(input.resolve("b.avsc"), record("B", "{ \"name\": \"a\", \"type\": \"x.A\" }"));
+        Files.writeString(input.resolve("c.avsc"), record("C", "{ \"name\": \"n\", \"type\": \"string\" }"));
+
+        assertEquals(3, incremental(input, output).count(BuildMetrics.Counter.CONVERTED));
+
+        BuildMetrics second = incremental(input, output);
+        assertEquals(0, second.count(BuildMetrics.Counter.CONVERTED));
+        assertEquals(3, second.count(BuildMetrics.Counter.UP_TO_DATE));
+
+        Files.writeString(input.resolve("a.avsc"), record("A", "{ \"name\": \"id\", \"type\": \"long\" }, "
+                + "{ \"name\": \"added\", \"type\": \"int\" }"));
+        BuildMetrics third = incremental(input, output);
+        assertEquals(2, third.count(BuildMetrics.Counter.CONVERTED));
+        assertEquals(1, third.count(BuildMetrics.Counter.UP_TO_DATE));
+        assertTrue(Files.readString(output.resolve("b.schema.json")).contains("\"added\""));
+
+        Files.delete(input.resolve("c.avsc"));
+        BuildMetrics fourth = incremental(input, output);
+        assertEquals(1, fourth.count(BuildMetrics.Counter.REMOVED));
+        assertEquals(0, fourth.count(BuildMetrics.Counter.CONVERTED));
+        assertFalse(Files.exists(output.resolve("c.schema.json")));
+        assertTrue(Files.exists(output.resolve("a.schema.json")));
+    }
+
+    @Test
+    void updateWithKeptTypesOnlyReadsOutdatedSources() throws Exception {
+        Path input = Files.createDirectories(dir.resolve("avro"));
+        Path output = dir.resolve("json");
+        Files.writeString(input.resolve("a.avsc"), record("A", "{ \"name\": \"id\", \"type\": \"long\" }"));
+        Files.writeString(input.resolve("b.avsc"), record("B", "{ \"name\": \"a\", \"type\": \"x.A\" }"));
+        AvroToJsonMojo mojo = mojo(input, output);
+        set(mojo, "incremental", true);
+        set(mojo, "sharedTypes", true);
+        mojo.prepare();
+
+        // Like the watch goal: one pass per update, keeping the parsed types
+        mojo.newPass(true);
+        BuildState state = mojo.processIncrementally(mojo.discover(), mojo.loadBuildState());
+        assertEquals(2, mojo.metrics.count(BuildMetrics.Counter.CONVERTED));
+
+        String b = record("B", "{ \"name\": \"a\", \"type\": \"x.A\" }, { \"name\": \"n\", \"type\": \"int\" }");
+        Files.writeString(input.resolve("b.avsc"), b);
+        mojo.metrics = new BuildMetrics();
+        mojo.newPass(true);
+        mojo.processIncrementally(mojo.discover(), state);
+        mojo.reportFailures();
+
+        assertEquals(1, mojo.metrics.count(BuildMetrics.Counter.CONVERTED));
+        // a.avsc defines a type of b.avsc, but was not read again
+        assertEquals(b.getBytes(StandardCharsets.UTF_8).length, mojo.metrics.count(BuildMetrics.Counter.BYTES_READ));
+        String json = Files.readString(output.resolve("b.schema.json"));
+        assertTrue(json.contains("\"id\"") && json.contains("\"n\""), json);
+    }
+
+    @Test
+    void watchUpdateReusesCachedTypesWhenStreaming() throws Exception {
+        Path input = Files.createDirectories(dir.resolve("avro"));
+        Path output = dir.resolve("json");
+        Files.writeString(input.resolve("a.avsc"), record("A", "{ \"name\": \"id\", \"type\": \"long\" }"));
+        Files.writeString(input.resolve("b.avsc"), record("B", "{ \"name\": \"a\", \"type\": \"x.A\" }"));
+        AvroToJsonMojo mojo = mojo(new AvroToJsonWatchMojo(), input, output);
+        set(mojo, "sharedTypes", true);
+        set(mojo, "streaming", true);
+        mojo.prepare();
+
+        mojo.newPass(true);
+        BuildState state = mojo.processIncrementally(mojo.discover(), mojo.loadBuildState());
+        long hits = mojo.conversionCache().stats().hits();
+
+        Files.writeString(input.resolve("b.avsc"), record("B", "{ \"name\": \"a\", \"type\": \"x.A\" }, "
+                + "{ \"name\": \"n\", \"type\": \"int\" }"));
+        mojo.newPass(true);
+        mojo.processIncrementally(mojo.discover(), state);
+
+        // Only b.avsc was converted again, with x.A taken from the cache
+        assertEquals(hits + 1, mojo.conversionCache().stats().hits());
+        String json = Files.readString(output.resolve("b.schema.json"));
+        assertTrue(json.contains("\"id\"") && json.contains("\"n\""), json);
+    }
+
+    @Test
+    void parallelConversionWritesInSourceOrder() throws Exception {
+        Path input = Files.createDirectories(dir.resolve("avro"));
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            // Early files are the largest, so they tend to finish last
+            StringBuilder fields = new StringBuilder("{ \"name\": \"f0\", \"type\": \"long\" }");
+            for (int f = 1; f < (40 - i) * 20; f++) fields.append(", { \"name\": \"f").append(f).append("\", \"type\": \"string\" }");
+            String name = String.format("s%02d.avsc", i);
+            Files.writeString(input.resolve(name), record("S" + i, fields.toString()));
+            expected.add(name);
+        }
+        List<String> order = new ArrayList<>();
+        AvroToJsonMojo mojo = mojo(new AvroToJsonMojo() {
+            @Override
+            void converted(SourceFile source, Schema schema) {
+                order.add(source.relativeName());
+            }
+        }, input, dir.resolve("json"));
+        set(mojo, "parallelism", 4);
+        set(mojo, "maxInFlight", 8);
+        mojo.execute();
+
+        assertEquals(expected, order);
+        assertEquals(40, mojo.metrics.count(BuildMetrics.Counter.CONVERTED));
+    }
+
+    @Test
+    void sharedTypesResolveNamedTypesOfOtherFiles() throws Exception {
+        Path input = Files.createDirectories(dir.resolve("avro"));
+        Path output = dir.resolve("json");
+        // The using file comes first in discovery order, so its dependency has to be parsed before it
+        Files.writeString(input.resolve("order.avsc"), record("Order", "{ \"name\": \"to\", \"type\": \"x.Address\" }"));
+        Files.createDirectories(input.resolve("types"));
+        Files.writeString(input.resolve("types/address.avsc"), record("Address", "{ \"name\": \"street\", \"type\": \"string\" }"));
+
+        AvroToJsonMojo mojo = mojo(input, output);
+        set(mojo, "sharedTypes", true);
+        mojo.execute();
+
+        assertEquals(2, mojo.metrics.count(BuildMetrics.Counter.CONVERTED));
+        assertTrue(Files.readString(output.resolve("order.schema.json")).contains("\"street\""));
+        assertTrue(Files.exists(output.resolve("types/address.schema.json")));
+    }
+
+    @Test
+    void inputsAreConvertedIntoTheirOwnOutputDirectories() throws Exception {
+        Path common = Files.createDirectories(dir.resolve("common/avro"));
+        Path orders = Files.createDirectories(dir.resolve("orders/avro"));
+        Files.writeString(common.resolve("money.avsc"), record("Money", "{ \"name\": \"cents\", \"type\": \"long\" }"));
+        Files.writeString(orders.resolve("order.avsc"), record("Order", "{ \"name\": \"total\", \"type\": \"x.Money\" }"));
+        Path commonOut = dir.resolve("common/json");
+        Path ordersOut = dir.resolve("orders/json");
+
+        AvroToJsonMojo mojo = mojo(common, dir.resolve("unused"));
+        set(mojo, "input", null);
+        set(mojo, "inputs", List.of(new InputRoot(common.toFile(), null, commonOut.toFile()),
+                new InputRoot(orders.toFile(), null, ordersOut.toFile())));
+        set(mojo, "sharedTypes", true);
+        mojo.execute();
+
+        assertTrue(Files.exists(commonOut.resolve("money.schema.json")));
+        assertFalse(Files.exists(commonOut.resolve("order.schema.json")));
+        // A later input uses the named types of an earlier one
+        assertTrue(Files.readString(ordersOut.resolve("order.schema.json")).contains("\"cents\""));
+    }
+
+    @Test
+    void inputsWithOneOutputDirectoryShareItsStoredTypes() throws Exception {
+        Path orders = Files.createDirectories(dir.resolve("orders"));
+        Path invoices = Files.createDirectories(dir.resolve("invoices"));
+        Files.writeString(orders.resolve("order.avsc"), record("Order", "{ \"name\": \"total\", \"type\": "
+                + record("Money", "{ \"name\": \"cents\", \"type\": \"long\" }") + " }"));
+        Files.writeString(invoices.resolve("invoice.avsc"), record("Invoice", "{ \"name\": \"due\", \"type\": "
+                + record("Amount", "{ \"name\": \"units\", \"type\": \"int\" }") + " }"));
+        Path output = dir.resolve("json");
+
+        for (int build = 0; build < 2; build++) {
+            AvroToJsonMojo mojo = mojo(orders, output);
+            set(mojo, "input", null);
+            set(mojo, "inputs", List.of(new InputRoot(orders.toFile(), null, null), new InputRoot(invoices.toFile(), null, null)));
+            set(mojo, "deduplicate", true);
+            mojo.execute();
+
+            String index = Files.readString(output.resolve("objects/" + ContentStore.INDEX));
+            for (String name : List.of("order", "invoice")) {
+                assertTrue(index.contains(name + ".schema.json"), index);
+                Matcher ref = Pattern.compile("objects/([0-9a-f]{64})").matcher(Files.readString(output.resolve(name + ".schema.json")));
+                assertTrue(ref.find(), name);
+                assertTrue(Files.exists(output.resolve("objects/" + ref.group(1) + ".schema.json")), name);
+            }
+        }
+
+        // A bundle per input would overwrite the other one
+        AvroToJsonMojo mojo = mojo(orders, output);
+        set(mojo, "input", null);
+        set(mojo, "inputs", List.of(new InputRoot(orders.toFile(), null, null), new InputRoot(invoices.toFile(), null, null)));
+        set(mojo, "bundle", true);
+        MojoExecutionException e = assertThrows(MojoExecutionException.class, mojo::execute);
+        assertTrue(e.getMessage().contains("'bundle'"), e.getMessage());
+    }
+
+    @Test
+    void objectsDirectoryMustNotOverlapInputOrOutput() throws Exception {
+        Path input = Files.createDirectories(dir.resolve("avro"));
+        Files.writeString(input.resolve("a.avsc"), record("A", "{ \"name\": \"id\", \"type\": \"long\" }"));
+        for (String objects : List.of(".", "..", "../avro", "../avro/objects")) {
+            AvroToJsonMojo mojo = mojo(input, dir.resolve("json"));
+            set(mojo, "deduplicate", true);
+            set(mojo, "objectsDirectory", objects);
+            MojoExecutionException e = assertThrows(MojoExecutionException.class, mojo::execute, objects);
+            assertTrue(e.getMessage().contains("objectsDirectory"), e.getMessage());
+        }
+        assertTrue(Files.exists(input.resolve("a.avsc")));
+    }
+
+    @Test
+    void collectAllReportsEveryBrokenSchemaAndThenFails() throws Exception {
+        Path input = brokenSchemas();
+        Path output = dir.resolve("json");
+        AvroToJsonMojo mojo = mojo(input, output);
+        set(mojo, "failureMode", "collectAll");
+
+        MojoExecutionException e = assertThrows(MojoExecutionException.class, mojo::execute);
+        assertTrue(e.getMessage().startsWith("2 schema(s) failed"), e.getMessage());
+        assertTrue(e.getMessage().contains("b.avsc") && e.getMessage().contains("d.avsc"), e.getMessage());
+        assertTrue(Files.exists(output.resolve("a.schema.json")));
+        assertTrue(Files.exists(output.resolve("c.schema.json")));
+    }
+
+    @Test
+    void warnOnlySkipsBrokenSchemasAndSucceeds() throws Exception {
+        Path input = brokenSchemas();
+        Path output = dir.resolve("json");
+        AvroToJsonMojo mojo = mojo(input, output);
+        set(mojo, "failureMode", "warnOnly");
+        mojo.execute();
+
+        assertEquals(2, mojo.metrics.count(BuildMetrics.Counter.CONVERTED));
+        assertTrue(Files.exists(output.resolve("c.schema.json")));
+        assertFalse(Files.exists(output.resolve("b.schema.json")));
+        assertFalse(Files.exists(output.resolve("d.schema.json")));
+    }
+
+    @Test
+    void validateOnlyReportsEveryBrokenSchemaAndWritesNothing() throws Exception {
+        Path input = brokenSchemas();
+        Path output = dir.resolve("json");
+        AvroToJsonMojo mojo = mojo(new AvroToJsonValidateMojo(), input, output);
+        set(mojo, "incremental", true);
+
+        MojoExecutionException e = assertThrows(MojoExecutionException.class, mojo::execute);
+        assertTrue(e.getMessage().contains("b.avsc") && e.getMessage().contains("d.avsc"), e.getMessage());
+        assertEquals(2, mojo.metrics.count(BuildMetrics.Counter.CONVERTED));
+        assertFalse(Files.exists(output));
+        assertFalse(Files.exists(dir.resolve("state")));
+    }
+
+    @Test
+    void deeplyNestedSchemasConvertOnASmallThreadStack() throws Exception {
+        // Types used by name keep the JSON flat for Avro's recursive parser, while the schema nests once per type
+        int depth = 1_000;
+        Path input = Files.createDirectories(dir.resolve("avro"));
+        StringBuilder chain = new StringBuilder("[");
+        for (int i = 0; i < depth; i++) {
+            String type = i == 0 ? "\"string\"" : "[\"null\", \"x.R" + (i - 1) + "\"]";
+            chain.append(i > 0 ? ",\n" : "").append(record("R" + i, "{ \"name\": \"f\", \"type\": " + type + " }"));
+        }
+        Files.writeString(input.resolve("chain.avsc"), chain.append("]"));
+        Files.writeString(input.resolve("root.avsc"), record("Root", "{ \"name\": \"deep\", \"type\": \"x.R" + (depth - 1) + "\" }"));
+
+        List<String> outputs = new ArrayList<>();
+        for (boolean streaming : new boolean[]{true, false}) {
+            Path output = dir.resolve("json-" + streaming);
+            AvroToJsonMojo mojo = mojo(input, output);
+            set(mojo, "streaming", streaming);
+            set(mojo, "sharedTypes", true);
+            set(mojo, "useReferences", true);
+            onSmallStack(mojo::execute);
+            outputs.add(Files.readString(output.resolve("root.schema.json")));
+        }
+        assertTrue(outputs.getFirst().contains("\"x.R0\""));
+        assertEquals(outputs.get(1), outputs.getFirst());
+    }
+
+    /**
+     * Runs a build on a thread whose stack is far too small for one stack frame per nesting level.
+     */
+    private static void onSmallStack(Executable build) throws InterruptedException {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread thread = new Thread(null, () -> {
+            try {
+                build.execute();
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        }, "small-stack", 256 * 1024);
+        thread.start();
+        thread.join();
+        if (failure.get() != null) fail(failure.get());
+    }
+
+    @Test
+    void schemaDiffKeepsTheTypesOfBrokenSchemas() throws Exception {
+        Path input = Files.createDirectories(dir.resolve("avro"));
+        Files.writeString(input.resolve("a.avsc"), record("A", "{ \"name\": \"id\", \"type\": \"long\" }"));
+        Files.writeString(input.resolve("d.avsc"), record("D", "{ \"name\": \"m\", \"type\": \"string\" }"));
+        Path snapshot = dir.resolve("snapshot.json");
+        Path report = dir.resolve("diff.json");
+        AvroToJsonMojo mojo = mojo(new AvroToJsonDiffMojo(), input, dir.resolve("json"));
+        set(mojo, "diffSnapshot", snapshot.toFile());
+        set(mojo, "diffReport", report.toFile());
+        set(mojo, "updateSnapshot", true);
+        mojo.execute();
+        String baseline = Files.readString(snapshot);
+        assertTrue(baseline.contains("\"x.D\""), baseline);
+
+        Files.writeString(input.resolve("a.avsc"), record("A", "{ \"name\": \"id\", \"type\": \"string\" }"));
+        Files.writeString(input.resolve("d.avsc"), record("D", "{ \"name\": \"m\", \"type\": \"x.Missing\" }"));
+        mojo = mojo(new AvroToJsonDiffMojo(), input, dir.resolve("json"));
+        set(mojo, "diffSnapshot", snapshot.toFile());
+        set(mojo, "diffReport", report.toFile());
+        set(mojo, "updateSnapshot", true);
+        set(mojo, "failureMode", "warnOnly");
+        mojo.execute();
+
+        String diff = Files.readString(report);
+        assertTrue(diff.contains("\"x.A\""), diff);
+        assertFalse(diff.contains("x.D") || diff.contains("TYPE_REMOVED"), diff);
+        assertEquals(baseline, Files.readString(snapshot));
+    }
+
+    @Test
+    void samplesOfASchemaInSeveralInputsAreRejected() throws Exception {
+        Path orders = Files.createDirectories(dir.resolve("orders"));
+        Path archive = Files.createDirectories(dir.resolve("archive"));
+        Files.writeString(orders.resolve("order.avsc"), record("Order", "{ \"name\": \"id\", \"type\": \"long\" }"));
+        Files.writeString(archive.resolve("order.avsc"), record("Order", "{ \"name\": \"id\", \"type\": \"string\" }"));
+        Files.writeString(Files.createDirectories(dir.resolve("samples/order")).resolve("one.json"), "{ \"id\": 1 }");
+
+        AvroToJsonMojo mojo = mojo(new AvroToJsonSamplesMojo(), orders, dir.resolve("json"));
+        set(mojo, "samplesDirectory", dir.resolve("samples").toFile());
+        mojo.execute();
+
+        mojo = mojo(new AvroToJsonSamplesMojo(), orders, dir.resolve("json"));
+        set(mojo, "samplesDirectory", dir.resolve("samples").toFile());
+        set(mojo, "input", null);
+        set(mojo, "inputs", List.of(new InputRoot(orders.toFile(), null, null), new InputRoot(archive.toFile(), null, null)));
+        MojoExecutionException e = assertThrows(MojoExecutionException.class, mojo::execute);
+        assertTrue(e.getMessage().contains("ambiguous") && e.getMessage().contains(archive.toString()), e.getMessage());
+    }
+
+    /**
+     * Writes two valid schemas and, between them, one that is not JSON and one using an unknown type.
+     */
+    private Path brokenSchemas() throws Exception {
+        Path input = Files.createDirectories(dir.resolve("avro"));
+        Files.writeString(input.resolve("a.avsc"), record("A", "{ \"name\": \"id\", \"type\": \"long\" }"));
+        Files.writeString(input.resolve("b.avsc"), "{ \"type\": \"record\", ");
+        Files.writeString(input.resolve("c.avsc"), record("C", "{ \"name\": \"n\", \"type\": \"string\" }"));
+        Files.writeString(input.resolve("d.avsc"), record("D", "{ \"name\": \"m\", \"type\": \"x.Missing\" }"));
+        return input;
+    }
+
+    private BuildMetrics incremental(Path input, Path output) throws Exception {
+        AvroToJsonMojo mojo = mojo(input, output);
+        set(mojo, "incremental", true);
+        set(mojo, "sharedTypes", true);
+        mojo.execute();
+        return mojo.metrics;
+    }
+
+    private static String record(String name, String fields) {
+        return "{ \"type\": \"record\", \"name\": \"" + name + "\", \"namespace\": \"x\", \"fields\": [ " + fields + " ] }";
+    }
+
+    /**
+     * Returns a Mojo converting {@code input} to {@code output}, with every other parameter set to its default like
+     * Maven would.
+     */
+    private AvroToJsonMojo mojo(Path input, Path output) throws ReflectiveOperationException {
+        return mojo(new AvroToJsonMojo(), input, output);
+    }
+
+    private AvroToJsonMojo mojo(AvroToJsonMojo mojo, Path input, Path output) throws ReflectiveOperationException {
+        set(mojo, "input", input.toFile());
+        set(mojo, "outputDirectory", output.toFile());
+        set(mojo, "buildStateFile", new File(dir.toFile(), "state/build-state.json"));
+        set(mojo, "recursive", true);
+        set(mojo, "followSymlinks", true);
+        set(mojo, "streaming", true);
+        set(mojo, "skipUnchanged", true);
+        set(mojo, "outputFormat", "pretty");
+        set(mojo, "draft", "draft-07");
+        set(mojo, "bundleName", "schemas.bundle");
+        set(mojo, "objectsDirectory", "objects");
+        set(mojo, "slowestSchemas", 5);
+        return mojo;
+    }
+
+    static void set(AvroToJsonMojo mojo, String name, Object value) throws ReflectiveOperationException {
+        Class<?> type = mojo.getClass();
+        while (Arrays.stream(type.getDeclaredFields()).noneMatch(f -> f.getName().equals(name))) type = type.getSuperclass();
+        Field field = type.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(mojo, value);
+    }
+}
@@ -1,16 +1,24 @@
 package io.github.s1m0n;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import org.apache.avro.LogicalTypes;
 import org.apache.avro.Schema;
+import org.apache.avro.util.internal.Accessor;
 import org.junit.jupiter.api.Test;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 public class AvroToJsonSchemaConverterTest {
 
+    private final AvroToJsonSchemaConverter converter = new AvroToJsonSchemaConverter();
+
     private Schema parse(String avsc) {
         return new Schema.Parser().parse(avsc);
     }
@@ -19,21 +27,21 @@ public class AvroToJsonSchemaConverterTest {
     void testPrimitiveTypes() {
         // string
         Schema s = Schema.create(Schema.Type.STRING);
-        Map<String, Object> js = AvroToJsonSchemaConverter.convert(s);
+        Map<String, Object> js = converter.convert(s);
         assertEquals("http://json-schema.org/draft-07/schema#", js.get("$schema"));
         assertEquals("string", js.get("type"));
 
         // int
-        js = AvroToJsonSchemaConverter.convert(Schema.create(Schema.Type.INT));
+        js = converter.convert(Schema.create(Schema.Type.INT));
         assertEquals("integer", js.get("type"));
         assertEquals("int32", js.get("format"));
 
         // boolean
-        js = AvroToJsonSchemaConverter.convert(Schema.create(Schema.Type.BOOLEAN));
+        js = converter.convert(Schema.create(Schema.Type.BOOLEAN));
         assertEquals("boolean", js.get("type"));
 
         // bytes
-        js = AvroToJsonSchemaConverter.convert(Schema.create(Schema.Type.BYTES));
+        js = converter.convert(Schema.create(Schema.Type.BYTES));
         assertEquals("string", js.get("type"));
         assertEquals("base64", js.get("contentEncoding"));
     }
@@ -50,7 +58,7 @@ public class AvroToJsonSchemaConverterTest {
                 "  ]\n" +
                 "}";
         Schema schema = parse(avsc);
-        Map<String, Object> root = AvroToJsonSchemaConverter.convert(schema);
+        Map<String, Object> root = converter.convert(schema);
         assertEquals("object", root.get("type"));
         assertEquals("User record", root.get("description"));
         Map<String, Object> props = (Map<String, Object>) root.get("properties");
@@ -76,7 +84,7 @@ public class AvroToJsonSchemaConverterTest {
                 "  ]\n" +
                 "}";
         Schema schema = parse(avsc);
-        Map<String, Object> root = AvroToJsonSchemaConverter.convert(schema);
+        Map<String, Object> root = converter.convert(schema);
         Map<String, Object> props = (Map<String, Object>) root.get("properties");
         Map<String, Object> v = (Map<String, Object>) props.get("v");
         List<Map<String, Object>> anyOf = (List<Map<String, Object>>) v.get("anyOf");
@@ -90,14 +98,14 @@ public class AvroToJsonSchemaConverterTest {
         // timestamp-millis on long
         Schema baseLong = Schema.create(Schema.Type.LONG);
         Schema ts = LogicalTypes.timestampMillis().addToSchema(baseLong);
-        Map<String, Object> js = AvroToJsonSchemaConverter.convert(ts);
+        Map<String, Object> js = converter.convert(ts);
         assertEquals("string", js.get("type"));
         assertEquals("date-time", js.get("format"));
 
         // date on long
         Schema baseLong2 = Schema.create(Schema.Type.INT);
         Schema date = LogicalTypes.date().addToSchema(baseLong2);
-        Map<String, Object> js2 = AvroToJsonSchemaConverter.convert(date);
+        Map<String, Object> js2 = converter.convert(date);
         assertEquals("string", js2.get("type"));
         assertEquals("date", js2.get("format"));
     }
@@ -105,12 +113,12 @@ public class AvroToJsonSchemaConverterTest {
     @Test
     void testEnumFixedHandling() {
         Schema e = Schema.createEnum("Color", null, null, List.of("RED", "GREEN"));
-        Map<String, Object> js = AvroToJsonSchemaConverter.convert(e);
+        Map<String, Object> js = converter.convert(e);
         assertEquals("string", js.get("type"));
         assertEquals(List.of("RED", "GREEN"), js.get("enum"));
 
         Schema f = Schema.createFixed("F16", null, null, 16);
-        Map<String, Object> jsf = AvroToJsonSchemaConverter.convert(f);
+        Map<String, Object> jsf = converter.convert(f);
         assertEquals("string", jsf.get("type"));
         assertEquals("base64", jsf.get("contentEncoding"));
     }
@@ -118,13 +126,208 @@ public class AvroToJsonSchemaConverterTest {
     @Test
     void testArrayAndMapRecursion() {
         Schema array = Schema.createArray(Schema.create(Schema.Type.STRING));
-        Map<String, Object> js = AvroToJsonSchemaConverter.convert(array);
+        Map<String, Object> js = converter.convert(array);
         assertEquals("array", js.get("type"));
         assertTrue(js.containsKey("items"));
 
         Schema map = Schema.createMap(Schema.create(Schema.Type.INT));
-        Map<String, Object> jsm = AvroToJsonSchemaConverter.convert(map);
+        Map<String, Object> jsm = converter.convert(map);
         assertEquals("object", jsm.get("type"));
         assertTrue(jsm.containsKey("additionalProperties"));
     }
+
+    @Test
+    void testRepeatedNamedTypeEmittedOnceAsDefinition() {
+        String avsc = "{\n" +
+                "  \"type\": \"record\",\n" +
+                "  \"name\": \"Order\",\n" +
+                "  \"namespace\": \"com.example\",\n" +
+                "  \"fields\": [\n" +
+                "    { \"name\": \"billing\", \"type\": { \"type\": \"record\", \"name\": \"Address\", \"fields\": [ { \"name\": \"street\", \"type\": \"string\" } ] } },\n" +
+                "    { \"name\": \"shipping\", \"type\": [\"null\", \"Address\"], \"doc\": \"Shipping address\" },\n" +
+                "    { \"name\": \"history\", \"type\": { \"type\": \"array\", \"items\": \"Address\" } }\n" +
+                "  ]\n" +
+                "}";
+        Map<String, Object> root = AvroToJsonSchemaConverter.builder().useReferences(true).build().convert(parse(avsc));
+        Map<String, Object> definitions = (Map<String, Object>) root.get("definitions");
+        assertEquals(List.of("com.example.Address"), List.copyOf(definitions.keySet()));
+        Map<String, Object> address = (Map<String, Object>) definitions.get("com.example.Address");
+        assertEquals("object", address.get("type"));
+
+        Map<String, Object> props = (Map<String, Object>) root.get("properties");
+        Map<String, Object> billing = (Map<String, Object>) props.get("billing");
+        assertEquals("#/definitions/com.example.Address", billing.get("$ref"));
+        Map<String, Object> shipping = (Map<String, Object>) props.get("shipping");
+        assertEquals("Shipping address", shipping.get("description"));
+        List<Map<String, Object>> anyOf = (List<Map<String, Object>>) shipping.get("anyOf");
+        assertEquals("#/definitions/com.example.Address", anyOf.get(0).get("$ref"));
+        Map<String, Object> history = (Map<String, Object>) props.get("history");
+        assertEquals("#/definitions/com.example.Address", ((Map<String, Object>) history.get("items")).get("$ref"));
+
+        // inline mode keeps repeated types inlined and emits no definitions
+        Map<String, Object> inline = converter.convert(parse(avsc));
+        assertFalse(inline.containsKey("definitions"));
+        Map<String, Object> inlineProps = (Map<String, Object>) inline.get("properties");
+        assertEquals("object", ((Map<String, Object>) inlineProps.get("billing")).get("type"));
+        assertFalse(((Map<String, Object>) inlineProps.get("billing")).containsKey("description"));
+    }
+
+    @Test
+    void testRecursiveTypesAreReferenced() {
+        String linkedList = "{\n" +
+                "  \"type\": \"record\",\n" +
+                "  \"name\": \"Node\",\n" +
+                "  \"fields\": [\n" +
+                "    { \"name\": \"value\", \"type\": \"int\" },\n" +
+                "    { \"name\": \"next\", \"type\": [\"null\", \"Node\"], \"default\": null }\n" +
+                "  ]\n" +
+                "}";
+        Map<String, Object> root = converter.convert(parse(linkedList));
+        Map<String, Object> next = (Map<String, Object>) ((Map<String, Object>) root.get("properties")).get("next");
+        List<Map<String, Object>> anyOf = (List<Map<String, Object>>) next.get("anyOf");
+        assertEquals("#", anyOf.get(0).get("$ref"));
+
+        String tree = "{\n" +
+                "  \"type\": \"record\",\n" +
+                "  \"name\": \"Forest\",\n" +
+                "  \"fields\": [\n" +
+                "    { \"name\": \"trees\", \"type\": { \"type\": \"array\", \"items\": {\n" +
+                "      \"type\": \"record\", \"name\": \"Tree\", \"fields\": [\n" +
+                "        { \"name\": \"children\", \"type\": { \"type\": \"array\", \"items\": \"Tree\" } }\n" +
+                "      ] } } }\n" +
+                "  ]\n" +
+                "}";
+        for (boolean useReferences : new boolean[]{false, true}) {
+            Map<String, Object> forest = AvroToJsonSchemaConverter.builder().useReferences(useReferences).build().convert(parse(tree));
+            Map<String, Object> definitions = (Map<String, Object>) forest.get("definitions");
+            Map<String, Object> treeDef = (Map<String, Object>) definitions.get("Tree");
+            Map<String, Object> children = (Map<String, Object>) ((Map<String, Object>) treeDef.get("properties")).get("children");
+            assertEquals("#/definitions/Tree", ((Map<String, Object>) children.get("items")).get("$ref"));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void defaultsKeepTheirWrittenRepresentation() {
+        String avsc = "{ \"type\": \"record\", \"name\": \"D\", \"fields\": [\n" +
+                "  { \"name\": \"ratio\", \"type\": \"double\", \"default\": 1 },\n" +
+                "  { \"name\": \"big\", \"type\": \"long\", \"default\": 9007199254740993 },\n" +
+                "  { \"name\": \"raw\", \"type\": \"bytes\", \"default\": \"\\u00ff\" }\n" +
+                "] }";
+        Map<String, Object> properties = (Map<String, Object>) converter.convert(parse(avsc)).get("properties");
+        assertEquals(1, ((Map<String, Object>) properties.get("ratio")).get("default"));
+        assertEquals(9007199254740993L, ((Map<String, Object>) properties.get("big")).get("default"));
+        assertEquals("\u00ff", ((Map<String, Object>) properties.get("raw")).get("default"));
+
+        Schema exact = Schema.createRecord("E", null, null, false, List.of(
+                new Schema.Field("amount", Schema.create(Schema.Type.DOUBLE), null, new BigDecimal("12345678901234567890.123456789"))));
+        Map<String, Object> amount = (Map<String, Object>) ((Map<String, Object>) converter.convert(exact).get("properties")).get("amount");
+        assertEquals(new BigDecimal("12345678901234567890.123456789"), amount.get("default"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void draft2020_12UsesDefsAndAnchors() {
+        String avsc = "{ \"type\": \"record\", \"name\": \"Order\", \"namespace\": \"com.example\", \"fields\": [\n" +
+                "  { \"name\": \"billing\", \"type\": { \"type\": \"record\", \"name\": \"Address\", \"fields\": [ { \"name\": \"street\", \"type\": \"string\" } ] } },\n" +
+                "  { \"name\": \"lines\", \"type\": { \"type\": \"array\", \"items\": { \"type\": \"record\", \"name\": \"_Line\", \"fields\": [\n" +
+                "    { \"name\": \"parts\", \"type\": { \"type\": \"array\", \"items\": \"_Line\" } }\n" +
+                "  ] } } }\n" +
+                "] }";
+        for (boolean useReferences : new boolean[]{false, true}) {
+            Map<String, Object> root = AvroToJsonSchemaConverter.builder().useReferences(useReferences)
+                    .draft(JsonSchemaDraft.DRAFT_2020_12).build().convert(parse(avsc));
+            assertEquals("https://json-schema.org/draft/2020-12/schema", root.get("$schema"));
+            assertEquals("com.example.Order", root.get("$anchor"));
+            assertFalse(root.containsKey("definitions"));
+            Map<String, Object> defs = (Map<String, Object>) root.get("$defs");
+            Map<String, Object> line = (Map<String, Object>) defs.get("com.example._Line");
+            assertEquals("com.example._Line", line.get("$anchor"));
+            Map<String, Object> parts = (Map<String, Object>) ((Map<String, Object>) line.get("properties")).get("parts");
+            assertEquals("#/$defs/com.example._Line", ((Map<String, Object>) parts.get("items")).get("$ref"));
+            assertEquals(useReferences, defs.containsKey("com.example.Address"));
+        }
+
+        // draft-07 has no anchors
+        assertFalse(converter.convert(parse(avsc)).containsKey("$anchor"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deeplyNestedSchemasConvertInASmallThreadStack() throws InterruptedException {
+        int depth = 10_000;
+        int records = 0;
+        Schema schema = Schema.create(Schema.Type.STRING);
+        for (int i = 0; i < depth; i++) {
+            if (i % 2 == 1) {
+                schema = Schema.createUnion(Schema.create(Schema.Type.NULL), schema);
+            } else if (i / 2 % 3 == 0) {
+                schema = Schema.createRecord("R" + i, "level " + i, "com.deep", false,
+                        List.of(new Schema.Field("f", schema, null, (Object) null)));
+                records++;
+            } else {
+                schema = i / 2 % 3 == 1 ? Schema.createArray(schema) : Schema.createMap(schema);
+            }
+        }
+        Schema deep = schema;
+        for (int variant = 0; variant < 4; variant++) {
+            boolean useReferences = variant % 2 == 1;
+            // With a cache, every named type is fingerprinted as well
+            AvroToJsonSchemaConverter c = AvroToJsonSchemaConverter.builder().useReferences(useReferences)
+                    .cache(variant < 2 ? null : new ConversionCache(100_000, 10_000_000)).build();
+            Map<String, Object> root = onSmallStack(() -> c.convert(deep));
+            Map<String, Object> definitions = (Map<String, Object>) root.getOrDefault("definitions", Map.of());
+            assertEquals(useReferences ? records : 0, definitions.size());
+
+            int found = 0;
+            Map<String, Object> node = root;
+            while (!node.containsKey("format") && !"string".equals(node.get("type"))) {
+                if (node.get("$ref") instanceof String ref) {
+                    node = (Map<String, Object>) definitions.get(ref.substring("#/definitions/".length()));
+                } else if (node.get("properties") instanceof Map<?, ?> properties) {
+                    found++;
+                    node = (Map<String, Object>) properties.get("f");
+                } else if (node.containsKey("items")) {
+                    node = (Map<String, Object>) node.get("items");
+                } else if (node.containsKey("additionalProperties")) {
+                    node = (Map<String, Object>) node.get("additionalProperties");
+                } else {
+                    node = ((List<Map<String, Object>>) node.get("anyOf")).getFirst();
+                }
+            }
+            assertEquals(records, found);
+        }
+
+        JsonNode nested = JsonNodeFactory.instance.textNode("leaf");
+        for (int i = 0; i < depth; i++) nested = JsonNodeFactory.instance.arrayNode().add(nested);
+        Schema withDefault = Schema.createRecord("D", null, null, false, List.of(
+                Accessor.createField("deep", Schema.create(Schema.Type.STRING), null, nested, false, Schema.Field.Order.ASCENDING)));
+        AvroToJsonSchemaConverter cached = AvroToJsonSchemaConverter.builder().cache(new ConversionCache(10, 10_000_000)).build();
+        for (AvroToJsonSchemaConverter c : List.of(converter, cached)) {
+            Map<String, Object> properties = (Map<String, Object>) onSmallStack(() -> c.convert(withDefault)).get("properties");
+            Object value = ((Map<String, Object>) properties.get("deep")).get("default");
+            for (int i = 0; i < depth; i++) value = ((List<Object>) value).getFirst();
+            assertEquals("leaf", value);
+        }
+    }
+
+    /**
+     * Runs a conversion on a thread whose stack is far too small for one stack frame per nesting level.
+     */
+    private static Map<String, Object> onSmallStack(Supplier<Map<String, Object>> conversion) throws InterruptedException {
+        AtomicReference<Object> result = new AtomicReference<>();
+        Thread thread = new Thread(null, () -> {
+            try {
+                result.set(conversion.get());
+            } catch (Throwable t) {
+                result.set(t);
+            }
+        }, "small-stack", 256 * 1024);
+        thread.start();
+        thread.join();
+        if (result.get() instanceof Throwable t) fail(t);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> converted = (Map<String, Object>) result.get();
+        return converted;
+    }
 }
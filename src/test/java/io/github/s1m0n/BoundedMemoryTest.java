@@ -0,0 +1,94 @@
+package io.github.s1m0n;
+
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Converts a generated corpus larger than the heap of a separate JVM started with a small {@code -Xmx}, both streamed
+ * and through the JSON tree.
+ */
+public class BoundedMemoryTest {
+
+    private static final int FILES = 2_000;
+    private static final String HEAP = "-Xmx32m";
+
+    @TempDir
+    Path dir;
+
+    @ParameterizedTest
+    @CsvSource({"true, false", "false, false", "false, true"})
+    void convertsCorpusLargerThanTheHeap(boolean streaming, boolean canonical) throws Exception {
+        Path input = Files.createDirectories(dir.resolve("avro"));
+        String doc = "x".repeat(30_000);
+        for (int i = 0; i < FILES; i++) {
+            Path file = input.resolve("v" + i % 10).resolve("s" + i + ".avsc");
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, "{ \"type\": \"record\", \"name\": \"S" + i + "\", \"doc\": \"" + doc + "\", \"fields\": [\n" +
+                    "  { \"name\": \"id\", \"type\": \"long\" },\n" +
+                    "  { \"name\": \"tags\", \"type\": { \"type\": \"map\", \"values\": \"string\" }, \"default\": {} }\n" +
+                    "] }");
+        }
+        Path output = dir.resolve("json");
+        Path log = dir.resolve("build.log");
+
+        Process process = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(), HEAP,
+                "-cp", System.getProperty("java.class.path"), Main.class.getName(), input.toString(), output.toString(),
+                String.valueOf(streaming), String.valueOf(canonical))
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        assertTrue(process.waitFor(2, TimeUnit.MINUTES), "conversion did not finish");
+        assertEquals(0, process.exitValue(), () -> tail(log));
+        try (Stream<Path> files = Files.walk(output)) {
+            assertEquals(FILES, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    private static String tail(Path log) {
+        try {
+            List<String> lines = Files.readAllLines(log);
+            return String.join("\n", lines.subList(Math.max(0, lines.size() - 30), lines.size()));
+        } catch (Exception e) {
+            return e.toString();
+        }
+    }
+
+    /**
+     * Runs the Mojo with {@code boundedMemory} outside of Maven, so parameters are set like Maven would.
+     */
+    public static final class Main {
+
+        public static void main(String[] args) throws Exception {
+            AvroToJsonMojo mojo = new AvroToJsonMojo();
+            set(mojo, "input", new File(args[0]));
+            set(mojo, "outputDirectory", new File(args[1]));
+            set(mojo, "recursive", true);
+            set(mojo, "followSymlinks", true);
+            set(mojo, "streaming", Boolean.parseBoolean(args[2]));
+            set(mojo, "canonical", Boolean.parseBoolean(args[3]));
+            set(mojo, "skipUnchanged", true);
+            set(mojo, "outputFormat", "pretty");
+            set(mojo, "draft", "draft-07");
+            set(mojo, "slowestSchemas", 5);
+            set(mojo, "boundedMemory", true);
+            mojo.execute();
+        }
+
+        private static void set(AvroToJsonMojo mojo, String name, Object value) throws ReflectiveOperationException {
+            Field field = AvroToJsonMojo.class.getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(mojo, value);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package io.github.s1m0n;
+
+import org.apache.avro.Schema;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BuildMetricsTest {
+
+    private static final ObjectWriter WRITER = new ObjectMapper().writerWithDefaultPrettyPrinter();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void slowestSchemasSumTheirPhases() {
+        BuildMetrics metrics = new BuildMetrics();
+        metrics.time(BuildMetrics.Phase.PARSE, "a.avsc", 5);
+        metrics.time(BuildMetrics.Phase.CONVERT, "a.avsc", 10);
+        metrics.time(BuildMetrics.Phase.PARSE, "b.avsc", 20);
+        metrics.time(BuildMetrics.Phase.SCAN, null, 100);
+        metrics.time(BuildMetrics.Phase.PARSE, "c.avsc", 1);
+
+        assertEquals(List.of(Map.entry("b.avsc", 20L), Map.entry("a.avsc", 15L)), metrics.slowest(2));
+        assertEquals(26, metrics.nanos(BuildMetrics.Phase.PARSE));
+        assertEquals(100, metrics.nanos(BuildMetrics.Phase.SCAN));
+    }
+
+    @Test
+    void countingGeneratorCountsObjectsWithoutChangingOutput() {
+        Schema schema = new Schema.Parser().parse("{ \"type\": \"record\", \"name\": \"R\", \"fields\": [\n" +
+                "  { \"name\": \"a\", \"type\": { \"type\": \"map\", \"values\": \"int\" }, \"default\": { \"x\": 1 } }\n" +
+                "] }");
+        AvroToJsonSchemaConverter converter = new AvroToJsonSchemaConverter();
+        BuildMetrics metrics = new BuildMetrics();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator gen = new BuildMetrics.CountingGenerator(WRITER.createGenerator(out), metrics)) {
+            new StreamingSchemaWriter(converter).write(schema, gen);
+        }
+        assertEquals(WRITER.writeValueAsString(converter.convert(schema)), out.toString());
+        // root, properties, a, additionalProperties, default
+        assertEquals(5, metrics.count(BuildMetrics.Counter.NODES));
+    }
+
+    @Test
+    void reportIsWrittenAsJsonOrCsv() throws Exception {
+        BuildMetrics metrics = new BuildMetrics();
+        metrics.add(BuildMetrics.Counter.CONVERTED, 3);
+        metrics.add(BuildMetrics.Counter.BYTES_WRITTEN, 2048);
+        metrics.time(BuildMetrics.Phase.WRITE, "dir/a,b.avsc", 42);
+
+        Path json = dir.resolve("reports/metrics.json");
+        metrics.writeReport(json, 5);
+        JsonNode report = new ObjectMapper().readTree(json.toFile());
+        assertEquals(3, report.path("counters").path("converted").asInt());
+        assertEquals(2048, report.path("counters").path("bytesWritten").asInt());
+        assertEquals(42, report.path("phaseNanos").path("write").asInt());
+        assertEquals("dir/a,b.avsc", report.path("slowestSchemas").path(0).path("schema").asString());
+
+        Path csv = dir.resolve("metrics.csv");
+        metrics.writeReport(csv, 5);
+        List<String> lines = Files.readAllLines(csv);
+        assertEquals("kind,name,value", lines.getFirst());
+        assertTrue(lines.contains("counter,upToDate,0"));
+        assertTrue(lines.contains("schema,\"dir/a,b.avsc\",42"));
+    }
+}
@@ -0,0 +1,58 @@
+package io.github.s1m0n;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BuildStateTest {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void savedStateIsLoadedForSameConfiguration() throws Exception {
+        File file = tmp.resolve("state/build-state.json").toFile();
+        BuildState state = BuildState.load(file, "cfg", new SystemStreamLog());
+        assertNull(state.previous("a.avsc"));
+        state.record("a.avsc", new BuildState.Entry("h1", 10, 20, "a.schema.json", List.of("x.A"), List.of("x.B")));
+        state.save();
+
+        BuildState reloaded = BuildState.load(file, "cfg", new SystemStreamLog());
+        BuildState.Entry entry = reloaded.previous("a.avsc");
+        assertNotNull(entry);
+        assertEquals("h1", entry.hash());
+        assertTrue(entry.isFresh(10, 20));
+        assertFalse(entry.isFresh(10, 21));
+        assertEquals(List.of("x.A"), entry.defines());
+        assertEquals(List.of("x.B"), entry.references());
+    }
+
+    @Test
+    void changedConfigurationOrCorruptFileStartsEmpty() throws Exception {
+        File file = tmp.resolve("build-state.json").toFile();
+        BuildState state = BuildState.load(file, "cfg", new SystemStreamLog());
+        state.record("a.avsc", new BuildState.Entry("h1", 1, 1, "a.schema.json", List.of(), List.of()));
+        state.save();
+
+        assertTrue(BuildState.load(file, "other", new SystemStreamLog()).previousSources().isEmpty());
+
+        Files.writeString(file.toPath(), "{ not json");
+        assertTrue(BuildState.load(file, "cfg", new SystemStreamLog()).previousSources().isEmpty());
+    }
+
+    @Test
+    void deleteOutputRemovesRecordedFile() throws Exception {
+        Path out = Files.writeString(tmp.resolve("a.schema.json"), "{}");
+        BuildState.Entry entry = new BuildState.Entry("h", 1, 1, "a.schema.json", List.of(), List.of());
+        assertTrue(BuildState.deleteOutput(tmp.toFile(), entry));
+        assertFalse(Files.exists(out));
+        assertFalse(BuildState.deleteOutput(tmp.toFile(), entry));
+    }
+}
@@ -0,0 +1,73 @@
+package io.github.s1m0n;
+
+import org.apache.avro.Schema;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BundleWriterTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ObjectWriter WRITER = MAPPER.writerWithDefaultPrettyPrinter();
+
+    private static final String MONEY = "{ \"type\": \"record\", \"name\": \"Money\", \"namespace\": \"com.shop\", \"fields\": [\n" +
+            "  { \"name\": \"amount\", \"type\": \"double\" }\n" +
+            "] }";
+    private static final String ITEM = "{ \"type\": \"record\", \"name\": \"Item\", \"namespace\": \"com.shop\", \"fields\": [\n" +
+            "  { \"name\": \"price\", \"type\": " + MONEY + " },\n" +
+            "  { \"name\": \"discount\", \"type\": [\"null\", \"Money\"], \"default\": null }\n" +
+            "] }";
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void sharedNamedTypesAreStoredOnceAndEachSchemaGetsAnEntryPoint() {
+        Map<String, Schema> schemas = new LinkedHashMap<>();
+        schemas.put("money", new Schema.Parser().parse(MONEY));
+        schemas.put("shop/item", new Schema.Parser().parse(ITEM));
+        schemas.put("tags", new Schema.Parser().parse("{ \"type\": \"array\", \"items\": \"string\" }"));
+
+        Map<String, Object> bundle = new AvroToJsonSchemaConverter().convertBundle(schemas);
+
+        Map<String, Object> definitions = (Map<String, Object>) bundle.get(JsonSchemaDraft.DRAFT_07.definitions());
+        assertEquals(List.of("com.shop.Money", "com.shop.Item"), List.copyOf(definitions.keySet()));
+        Map<String, Object> entryPoints = (Map<String, Object>) bundle.get(AvroToJsonSchemaConverter.ENTRY_POINTS);
+        assertEquals(Map.of("$ref", "#/definitions/com.shop.Money"), entryPoints.get("money"));
+        assertEquals(Map.of("$ref", "#/definitions/com.shop.Item"), entryPoints.get("shop/item"));
+        assertEquals("array", ((Map<String, Object>) entryPoints.get("tags")).get("type"));
+    }
+
+    @Test
+    void indexPointsAtEachSchemaWithinTheBundle() {
+        Map<String, Schema> schemas = new LinkedHashMap<>();
+        schemas.put("item", new Schema.Parser().parse(ITEM));
+        schemas.put("ids", new Schema.Parser().parse("{ \"type\": \"map\", \"values\": \"long\" }"));
+        Map<String, Object> bundle = new AvroToJsonSchemaConverter().convertBundle(schemas);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Map<String, Map<String, BundleWriter.Span>> index = BundleWriter.write(bundle, out, WRITER);
+        byte[] bytes = out.toByteArray();
+
+        assertEquals(WRITER.writeValueAsString(bundle), out.toString(StandardCharsets.UTF_8));
+        assertEquals(2, index.get(JsonSchemaDraft.DRAFT_07.definitions()).size());
+        assertEquals(2, index.get(AvroToJsonSchemaConverter.ENTRY_POINTS).size());
+        for (Map.Entry<String, Map<String, BundleWriter.Span>> section : index.entrySet()) {
+            Map<?, ?> expected = (Map<?, ?>) bundle.get(section.getKey());
+            for (Map.Entry<String, BundleWriter.Span> e : section.getValue().entrySet()) {
+                BundleWriter.Span span = e.getValue();
+                byte[] slice = Arrays.copyOfRange(bytes, (int) span.offset(), (int) (span.offset() + span.length()));
+                assertEquals(MAPPER.valueToTree(expected.get(e.getKey())), MAPPER.readTree(slice), e.getKey());
+                assertEquals('{', slice[0]);
+                assertEquals('}', slice[slice.length - 1]);
+            }
+        }
+    }
+}
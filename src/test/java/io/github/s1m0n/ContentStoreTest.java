@@ -0,0 +1,81 @@
+package io.github.s1m0n;
+
+import org.apache.avro.Schema;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.ObjectMapper;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ContentStoreTest {
+
+    private static final String MONEY = "{ \"type\": \"record\", \"name\": \"Money\", \"fields\": [\n" +
+            "  { \"name\": \"currency\", \"type\": { \"type\": \"enum\", \"name\": \"Currency\", \"symbols\": [\"EUR\", \"USD\"] } },\n" +
+            "  { \"name\": \"cents\", \"type\": \"long\" }\n" +
+            "] }";
+    private static final String ORDER_V1 = "{ \"type\": \"record\", \"name\": \"Order\", \"fields\": [\n" +
+            "  { \"name\": \"total\", \"type\": " + MONEY + " }\n" +
+            "] }";
+    private static final String ORDER_V2 = "{ \"type\": \"record\", \"name\": \"Order\", \"fields\": [\n" +
+            "  { \"name\": \"total\", \"type\": " + MONEY + " },\n" +
+            "  { \"name\": \"note\", \"type\": [\"null\", \"string\"], \"default\": null }\n" +
+            "] }";
+    private static final String TREE = "{ \"type\": \"record\", \"name\": \"Tree\", \"fields\": [\n" +
+            "  { \"name\": \"children\", \"type\": { \"type\": \"array\", \"items\": { \"type\": \"record\", \"name\": \"Branch\", \"fields\": [\n" +
+            "    { \"name\": \"tree\", \"type\": \"Tree\" }\n" +
+            "  ] } } }\n" +
+            "] }";
+
+    @TempDir
+    Path dir;
+
+    private final AvroToJsonSchemaConverter converter = new AvroToJsonSchemaConverter();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private ContentStore.Split split(ContentStore store, String avsc) {
+        Schema schema = new Schema.Parser().parse(avsc);
+        return store.split(converter.convertBundle(Map.of("s", schema)), "s", "objects/");
+    }
+
+    @Test
+    void identicalTypesOfDifferentVersionsShareOneObject() throws Exception {
+        ContentStore store = new ContentStore(dir.resolve("objects"), mapper.writer(), ".schema.json", false, JsonSchemaDraft.DRAFT_07);
+        ContentStore.Split v1 = split(store, ORDER_V1);
+        ContentStore.Split v2 = split(store, ORDER_V2);
+
+        assertEquals(v1.types().get("Money"), v2.types().get("Money"));
+        assertEquals(v1.types().get("Currency"), v2.types().get("Currency"));
+        assertNotEquals(v1.types().get("Order"), v2.types().get("Order"));
+        assertEquals("objects/" + v1.types().get("Order") + ".schema.json", v1.document().get("$ref"));
+
+        assertEquals(3, store.write("v1/order.schema.json", v1));
+        assertEquals(1, store.write("v2/order.schema.json", v2));
+        String order = Files.readString(dir.resolve("objects/" + v1.types().get("Order") + ".schema.json"));
+        assertTrue(order.contains("\"$ref\":\"" + v1.types().get("Money") + ".schema.json\""), order);
+
+        // Dropping v1 removes the objects only it used, but no other files
+        Path foreign = Files.writeString(dir.resolve("objects/user.schema.json"), "{}");
+        assertEquals(1, store.finish(Set.of("v2/order.schema.json")));
+        assertTrue(Files.exists(foreign));
+        assertFalse(Files.exists(dir.resolve("objects/" + v1.types().get("Order") + ".schema.json")));
+        assertTrue(Files.exists(dir.resolve("objects/" + v1.types().get("Money") + ".schema.json")));
+        assertTrue(Files.readString(dir.resolve("objects/" + ContentStore.INDEX)).contains("v2/order.schema.json"));
+    }
+
+    @Test
+    void recursiveTypesGetStableHashesAndReferToEachOther() {
+        ContentStore store = new ContentStore(dir, mapper.writer(), ".schema.json", false, JsonSchemaDraft.DRAFT_07);
+        ContentStore.Split first = split(store, TREE);
+        ContentStore.Split second = split(store, TREE);
+        assertEquals(first.types(), second.types());
+        assertNotEquals(first.types().get("Tree"), first.types().get("Branch"));
+
+        String branch = new String(first.objects().get(first.types().get("Branch")));
+        assertTrue(branch.contains(first.types().get("Tree") + ".schema.json"), branch);
+    }
+}
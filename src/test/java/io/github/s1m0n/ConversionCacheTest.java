@@ -0,0 +1,107 @@
+package io.github.s1m0n;
+
+import org.apache.avro.Schema;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConversionCacheTest {
+
+    private static final String MONEY = "{ \"type\": \"record\", \"name\": \"Money\", \"namespace\": \"com.shop\", \"fields\": [\n" +
+            "  { \"name\": \"amount\", \"type\": \"double\" },\n" +
+            "  { \"name\": \"currency\", \"type\": \"string\", \"default\": \"EUR\" }\n" +
+            "] }";
+
+    private static String record(String name, String doc) {
+        return "{ \"type\": \"record\", \"name\": \"" + name + "\", \"namespace\": \"com.shop\", \"doc\": \"" + doc + "\", \"fields\": [\n" +
+                "  { \"name\": \"price\", \"type\": " + MONEY + " }\n" +
+                "] }";
+    }
+
+    private static Schema parse(String avsc) {
+        return new Schema.Parser().parse(avsc);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void equalSchemasHitAndNamedTypesAreSharedBetweenDocuments() {
+        ConversionCache cache = new ConversionCache(100, 10_000);
+        AvroToJsonSchemaConverter converter = AvroToJsonSchemaConverter.builder().cache(cache).build();
+
+        Map<String, Object> first = converter.convert(parse(record("Item", "An item")));
+        assertSame(first, converter.convert(parse(record("Item", "An item"))));
+        // Docs are part of the key, unlike in the Avro parsing canonical form
+        Map<String, Object> other = converter.convert(parse(record("Item", "Another item")));
+        assertNotSame(first, other);
+        assertEquals("Another item", other.get("description"));
+
+        Map<String, Object> order = converter.convert(parse(record("Order", "An order")));
+        Map<String, Object> itemPrice = (Map<String, Object>) ((Map<String, Object>) first.get("properties")).get("price");
+        Map<String, Object> orderPrice = (Map<String, Object>) ((Map<String, Object>) order.get("properties")).get("price");
+        assertSame(itemPrice.get("properties"), orderPrice.get("properties"));
+
+        ConversionCache.Stats stats = cache.stats();
+        assertEquals(1 + 2, stats.hits()); // the repeated document and Money in two later documents
+        assertEquals(3 + 1, stats.misses());
+        assertEquals(0, stats.evictions());
+        assertEquals(4, stats.entries());
+    }
+
+    @Test
+    void fingerprintsCoverTheWholeSchemaButNotTheInstance() {
+        String money = MONEY.replace("\"EUR\"", "\"USD\"");
+        long item = new ConversionCache.Fingerprints().of(parse(record("Item", "An item")));
+        assertEquals(item, new ConversionCache.Fingerprints().of(parse(record("Item", "An item"))));
+        assertNotEquals(item, new ConversionCache.Fingerprints().of(parse(record("Item", "Another item"))));
+        assertNotEquals(item, new ConversionCache.Fingerprints().of(parse(record("Item", "An item").replace(MONEY, money))));
+
+        // A named type used inside itself is only named there, so the recursion ends
+        String node = "{ \"type\": \"record\", \"name\": \"Node\", \"fields\": [ { \"name\": \"next\", \"type\": [\"null\", \"Node\"] } ] }";
+        assertEquals(new ConversionCache.Fingerprints().of(parse(node)), new ConversionCache.Fingerprints().of(parse(node)));
+        assertNotEquals(new ConversionCache.Fingerprints().of(parse(node)),
+                new ConversionCache.Fingerprints().of(parse(node.replace("\"null\", \"Node\"", "\"Node\", \"null\""))));
+    }
+
+    @Test
+    void resultsAreImmutable() {
+        AvroToJsonSchemaConverter converter = AvroToJsonSchemaConverter.builder().cache(new ConversionCache(10, 1_000)).build();
+        Map<String, Object> result = converter.convert(parse(MONEY));
+        assertThrows(UnsupportedOperationException.class, () -> result.put("x", 1));
+        assertThrows(UnsupportedOperationException.class, () -> ((List<?>) result.get("required")).clear());
+    }
+
+    @Test
+    void entriesAreEvictedBySizeAndWeight() {
+        ConversionCache bySize = new ConversionCache(2, 1_000);
+        AvroToJsonSchemaConverter converter = AvroToJsonSchemaConverter.builder().cache(bySize).build();
+        converter.convert(parse("\"string\""));
+        converter.convert(parse("\"long\""));
+        converter.convert(parse("\"string\""));
+        converter.convert(parse("\"int\""));
+        assertEquals(1, bySize.stats().evictions());
+        converter.convert(parse("\"string\""));
+        assertEquals(1, bySize.stats().evictions(), "recently used entry must survive");
+        converter.convert(parse("\"long\""));
+        assertEquals(2, bySize.stats().evictions());
+
+        ConversionCache byWeight = new ConversionCache(100, 10);
+        AvroToJsonSchemaConverter weighed = AvroToJsonSchemaConverter.builder().cache(byWeight).build();
+        weighed.convert(parse(MONEY));
+        ConversionCache.Stats stats = byWeight.stats();
+        assertTrue(stats.weight() <= 10, stats.toString());
+        assertTrue(stats.evictions() > 0, stats.toString());
+    }
+
+    @Test
+    void recursiveNamedTypesAreNotCachedOnTheirOwn() {
+        ConversionCache cache = new ConversionCache(100, 10_000);
+        AvroToJsonSchemaConverter converter = AvroToJsonSchemaConverter.builder().cache(cache).build();
+        String node = "{ \"type\": \"record\", \"name\": \"Node\", \"fields\": [ { \"name\": \"next\", \"type\": [\"null\", \"Node\"] } ] }";
+        Map<String, Object> tree = converter.convert(parse("{ \"type\": \"array\", \"items\": " + node + " }"));
+        assertEquals(new AvroToJsonSchemaConverter().convert(parse("{ \"type\": \"array\", \"items\": " + node + " }")), tree);
+        assertEquals(1, cache.stats().entries());
+    }
+}
@@ -0,0 +1,17 @@
+package io.github.s1m0n;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FailureModeTest {
+
+    @Test
+    void parsesParameterValuesCaseInsensitively() {
+        assertEquals(FailureMode.FAIL_FAST, FailureMode.parse("failFast"));
+        assertEquals(FailureMode.COLLECT_ALL, FailureMode.parse(" collectall "));
+        assertEquals(FailureMode.WARN_ONLY, FailureMode.parse("WARNONLY"));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> FailureMode.parse("ignore"));
+        assertTrue(e.getMessage().contains("failFast, collectAll, warnOnly"));
+    }
+}
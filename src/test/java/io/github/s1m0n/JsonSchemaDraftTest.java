@@ -0,0 +1,28 @@
+package io.github.s1m0n;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonSchemaDraftTest {
+
+    @Test
+    void parsesParameterValuesWithOptionalPrefix() {
+        assertEquals(JsonSchemaDraft.DRAFT_07, JsonSchemaDraft.parse("draft-07"));
+        assertEquals(JsonSchemaDraft.DRAFT_07, JsonSchemaDraft.parse("07"));
+        assertEquals(JsonSchemaDraft.DRAFT_2019_09, JsonSchemaDraft.parse(" 2019-09 "));
+        assertEquals(JsonSchemaDraft.DRAFT_2020_12, JsonSchemaDraft.parse("Draft-2020-12"));
+        assertEquals(JsonSchemaDraft.DRAFT_07, JsonSchemaDraft.parse(null));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> JsonSchemaDraft.parse("draft-04"));
+        assertTrue(e.getMessage().contains("draft-07, 2019-09, 2020-12"));
+    }
+
+    @Test
+    void anchorsFollowTheDraftSyntax() {
+        assertNull(JsonSchemaDraft.DRAFT_07.anchor("com.example.Order"));
+        assertEquals("com.example.Order", JsonSchemaDraft.DRAFT_2020_12.anchor("com.example.Order"));
+        assertEquals("_Private", JsonSchemaDraft.DRAFT_2020_12.anchor("_Private"));
+        assertNull(JsonSchemaDraft.DRAFT_2019_09.anchor("_Private"));
+        assertEquals("#/$defs/a.B", JsonSchemaDraft.DRAFT_2019_09.reference("a.B"));
+    }
+}
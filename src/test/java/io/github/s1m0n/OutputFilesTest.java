@@ -0,0 +1,62 @@
+package io.github.s1m0n;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OutputFilesTest {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void identicalContentLeavesFileUntouched() throws IOException {
+        Path target = tmp.resolve("nested/a.schema.json");
+        assertTrue(OutputFiles.write(target, bytes("{ }"), true));
+        FileTime old = FileTime.fromMillis(1_000_000L);
+        Files.setLastModifiedTime(target, old);
+
+        assertFalse(OutputFiles.write(target, bytes("{ }"), true));
+        assertFalse(OutputFiles.write(target, out -> out.write(bytes("{ }")), true));
+        assertEquals(old, Files.getLastModifiedTime(target));
+
+        assertTrue(OutputFiles.write(target, bytes("{ }"), false));
+        assertNotEquals(old, Files.getLastModifiedTime(target));
+    }
+
+    @Test
+    void changedContentIsReplaced() throws IOException {
+        Path target = tmp.resolve("a.schema.json");
+        Files.writeString(target, "{ \"a\" : 1 }");
+        assertTrue(OutputFiles.write(target, bytes("{ \"a\" : 2 }"), true));
+        assertEquals("{ \"a\" : 2 }", Files.readString(target));
+        assertTrue(OutputFiles.write(target, out -> out.write(bytes("{ \"b\" : 2 }")), true));
+        assertEquals("{ \"b\" : 2 }", Files.readString(target));
+    }
+
+    @Test
+    void failedWriteKeepsPreviousFileAndRemovesTemporaryFile() throws IOException {
+        Path target = tmp.resolve("a.schema.json");
+        Files.writeString(target, "old");
+        assertThrows(IOException.class, () -> OutputFiles.write(target, out -> {
+            out.write(bytes("partial"));
+            throw new IOException("boom");
+        }, true));
+        assertEquals("old", Files.readString(target));
+        try (Stream<Path> files = Files.list(tmp)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,90 @@
+package io.github.s1m0n;
+
+import org.apache.avro.Schema;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OutputFormatTest {
+
+    private static final String AVSC = "{ \"type\": \"record\", \"name\": \"Item\", \"namespace\": \"com.shop\", \"doc\": \"An item\", \"fields\": [\n" +
+            "  { \"name\": \"name\", \"type\": \"string\" },\n" +
+            "  { \"name\": \"price\", \"type\": { \"type\": \"bytes\", \"logicalType\": \"decimal\", \"precision\": 10, \"scale\": 2 } },\n" +
+            "  { \"name\": \"tags\", \"type\": { \"type\": \"array\", \"items\": \"string\" }, \"default\": [\"new\"] },\n" +
+            "  { \"name\": \"parent\", \"type\": [\"null\", \"Item\"], \"default\": null }\n" +
+            "] }";
+
+    @ParameterizedTest
+    @EnumSource(OutputFormat.class)
+    void streamingAndTreeOutputDecodeToTheSameDocument(OutputFormat format) {
+        AvroToJsonSchemaConverter converter = new AvroToJsonSchemaConverter();
+        Schema schema = new Schema.Parser().parse(AVSC);
+        Map<String, Object> tree = converter.convert(schema);
+        byte[] expected = format.writer().writeValueAsBytes(tree);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator gen = format.writer().createGenerator(out)) {
+            new StreamingSchemaWriter(converter).write(schema, gen);
+        }
+        if (format != OutputFormat.CBOR) {
+            // CBOR differs in bytes only: streamed maps and arrays are written with indefinite length
+            assertArrayEquals(expected, out.toByteArray());
+        }
+
+        ObjectMapper mapper = switch (format) {
+            case SMILE -> new SmileMapper();
+            case CBOR -> new CBORMapper();
+            default -> new ObjectMapper();
+        };
+        assertEquals(new ObjectMapper().valueToTree(tree), mapper.readTree(out.toByteArray()));
+    }
+
+    @Test
+    void compactIsSmallerThanPretty() {
+        Map<String, Object> tree = new AvroToJsonSchemaConverter().convert(new Schema.Parser().parse(AVSC));
+        int pretty = OutputFormat.PRETTY.writer().writeValueAsBytes(tree).length;
+        int compact = OutputFormat.COMPACT.writer().writeValueAsBytes(tree).length;
+        assertTrue(compact < pretty, compact + " >= " + pretty);
+    }
+
+    @Test
+    void canonicalWriterSortsKeysNormalizesNumbersAndUsesLineFeeds() {
+        String a = "{ \"type\": \"record\", \"name\": \"N\", \"fields\": [\n" +
+                "  { \"name\": \"ratio\", \"type\": \"double\", \"default\": 1.50 },\n" +
+                "  { \"name\": \"count\", \"type\": \"double\", \"default\": 2.0 },\n" +
+                "  { \"name\": \"big\", \"type\": \"double\", \"default\": 1E+2 }\n" +
+                "] }";
+        String b = a.replace("1.50", "15e-1").replace("2.0", "2").replace("1E+2", "100.00");
+        AvroToJsonSchemaConverter converter = new AvroToJsonSchemaConverter();
+        String canonical = new String(OutputFormat.PRETTY.writer(true).writeValueAsBytes(converter.convert(new Schema.Parser().parse(a))));
+        assertEquals(canonical, new String(OutputFormat.PRETTY.writer(true).writeValueAsBytes(converter.convert(new Schema.Parser().parse(b)))));
+        assertTrue(canonical.startsWith("{\n  \"$schema\" : \"http://json-schema.org/draft-07/schema#\",\n  \"properties\" : {\n    \"big\" : {\n      \"default\" : 100,"),
+                canonical);
+        assertTrue(canonical.contains("\"default\" : 1.5,") && canonical.contains("\"default\" : 2,"), canonical);
+        assertFalse(canonical.contains("\r"));
+
+        for (OutputFormat format : new OutputFormat[]{OutputFormat.COMPACT, OutputFormat.SMILE, OutputFormat.CBOR}) {
+            byte[] sorted = format.writer(true).writeValueAsBytes(Map.of("b", 1.0, "a", 2));
+            assertArrayEquals(format.writer().writeValueAsBytes(new TreeMap<>(Map.of("a", 2, "b", 1))), sorted, format.name());
+        }
+    }
+
+    @Test
+    void parseIsCaseInsensitiveAndRejectsUnknownFormats() {
+        assertEquals(OutputFormat.SMILE, OutputFormat.parse("Smile"));
+        assertEquals(OutputFormat.COMPACT, OutputFormat.parse("compact"));
+        assertEquals(OutputFormat.PRETTY, OutputFormat.parse(null));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> OutputFormat.parse("yaml"));
+        assertTrue(e.getMessage().contains("yaml"));
+    }
+}
@@ -0,0 +1,60 @@
+package io.github.s1m0n;
+
+import org.apache.avro.Schema;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.ObjectMapper;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SampleValidatorTest {
+
+    private static final String ORDER = "{ \"type\": \"record\", \"name\": \"Order\", \"namespace\": \"com.shop\", \"fields\": [\n" +
+            "  { \"name\": \"id\", \"type\": { \"type\": \"string\", \"logicalType\": \"uuid\" } },\n" +
+            "  { \"name\": \"quantity\", \"type\": \"int\" },\n" +
+            "  { \"name\": \"ratio\", \"type\": \"double\" },\n" +
+            "  { \"name\": \"status\", \"type\": { \"type\": \"enum\", \"name\": \"Status\", \"symbols\": [\"NEW\", \"DONE\"] } },\n" +
+            "  { \"name\": \"note\", \"type\": [\"null\", \"string\"], \"default\": null },\n" +
+            "  { \"name\": \"payment\", \"type\": [\"null\", \"string\",\n" +
+            "    { \"type\": \"record\", \"name\": \"Card\", \"fields\": [ { \"name\": \"number\", \"type\": \"string\" } ] },\n" +
+            "    { \"type\": \"record\", \"name\": \"Transfer\", \"fields\": [ { \"name\": \"iban\", \"type\": \"string\" } ] }] },\n" +
+            "  { \"name\": \"attributes\", \"type\": { \"type\": \"map\", \"values\": \"long\" } },\n" +
+            "  { \"name\": \"parts\", \"type\": { \"type\": \"array\", \"items\": { \"type\": \"record\", \"name\": \"Part\", \"fields\": [\n" +
+            "    { \"name\": \"children\", \"type\": { \"type\": \"array\", \"items\": \"Part\" } }\n" +
+            "  ] } } }\n" +
+            "] }";
+
+    private static final String VALID = "{ \"id\": \"a\", \"quantity\": 2.0, \"ratio\": 1, \"status\": \"NEW\", \"payment\": { \"iban\": \"X\" },\n" +
+            "  \"attributes\": { \"a\": 1 }, \"parts\": [ { \"children\": [ { \"children\": [] } ] } ], \"extra\": true }";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final SampleValidator validator = SampleValidator.compile(new Schema.Parser().parse(ORDER), new AvroToJsonSchemaConverter());
+
+    private String validate(String json) {
+        return validator.validate(mapper.readTree(json));
+    }
+
+    private String with(String field, String value) {
+        return VALID.replaceFirst("\"" + field + "\": [^,]+(\\{[^}]*})?", "\"" + field + "\": " + value);
+    }
+
+    @Test
+    void acceptsSamplesOfTheGeneratedSchema() {
+        assertNull(validate(VALID));
+        assertNull(validate(with("payment", "\"cash\"")));
+        assertNull(validate(with("payment", "null")));
+        assertNull(validate(with("payment", "{ \"number\": \"1\" }")));
+    }
+
+    @Test
+    void reportsTheFirstViolationWithItsPath() {
+        assertEquals("/: missing required property 'parts'", validate("{ \"id\": \"a\", \"quantity\": 1, \"ratio\": 1, \"status\": \"NEW\", \"attributes\": {} }"));
+        assertEquals("/quantity: expected integer, got number", validate(with("quantity", "2.5")));
+        assertEquals("/status: expected one of [DONE, NEW], got \"OLD\"", validate(with("status", "\"OLD\"")));
+        assertEquals("/attributes/a: expected integer, got string", validate(with("attributes", "{ \"a\": \"1\" }")));
+        assertEquals("/parts/0/children/0/children: expected array, got null",
+                validate(with("parts", "[ { \"children\": [ { \"children\": null } ] } ]")));
+        assertEquals("/payment: expected null, string or object, got boolean", validate(with("payment", "true")));
+        assertEquals("/payment: none of the 2 object branches of the union match", validate(with("payment", "{ \"bic\": \"B\" }")));
+        assertEquals("/note: expected null or string, got integer", validate(VALID.replace("\"extra\"", "\"note\": 1, \"extra\"")));
+    }
+}
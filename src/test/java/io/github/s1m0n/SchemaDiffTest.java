@@ -0,0 +1,75 @@
+package io.github.s1m0n;
+
+import org.apache.avro.Schema;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SchemaDiffTest {
+
+    private static final String V1 = "{ \"type\": \"record\", \"name\": \"Order\", \"namespace\": \"com.shop\", \"fields\": [\n" +
+            "  { \"name\": \"id\", \"type\": \"string\" },\n" +
+            "  { \"name\": \"note\", \"type\": [\"null\", \"string\"] },\n" +
+            "  { \"name\": \"legacy\", \"type\": \"int\" },\n" +
+            "  { \"name\": \"payment\", \"type\": [\"string\", \"long\"] },\n" +
+            "  { \"name\": \"status\", \"type\": { \"type\": \"enum\", \"name\": \"Status\", \"symbols\": [\"NEW\", \"PAID\", \"LOST\"] } },\n" +
+            "  { \"name\": \"total\", \"type\": { \"type\": \"record\", \"name\": \"Money\", \"fields\": [ { \"name\": \"cents\", \"type\": \"long\" } ] } }\n" +
+            "] }";
+    private static final String V2 = "{ \"type\": \"record\", \"name\": \"Order\", \"namespace\": \"com.shop\", \"fields\": [\n" +
+            "  { \"name\": \"id\", \"type\": [\"null\", \"string\"] },\n" +
+            "  { \"name\": \"note\", \"type\": \"string\" },\n" +
+            "  { \"name\": \"payment\", \"type\": [\"string\", \"double\"] },\n" +
+            "  { \"name\": \"status\", \"type\": { \"type\": \"enum\", \"name\": \"Status\", \"symbols\": [\"NEW\", \"PAID\", \"SHIPPED\"] } },\n" +
+            "  { \"name\": \"total\", \"type\": { \"type\": \"record\", \"name\": \"Money\", \"fields\": [ { \"name\": \"cents\", \"type\": \"long\" } ] } },\n" +
+            "  { \"name\": \"coupon\", \"type\": [\"null\", \"string\"], \"default\": null },\n" +
+            "  { \"name\": \"channel\", \"type\": { \"type\": \"fixed\", \"name\": \"Channel\", \"size\": 2 } }\n" +
+            "] }";
+
+    @TempDir
+    File dir;
+
+    private static Map<String, SchemaDiff.Shape> shapes(String avsc) {
+        Map<String, SchemaDiff.Shape> shapes = new HashMap<>();
+        SchemaDiff.collect(new Schema.Parser().parse(avsc), new AvroToJsonSchemaConverter(), shapes);
+        return shapes;
+    }
+
+    @Test
+    void reportsStructuralChangesOfChangedTypesOnly() {
+        SchemaDiff.Report report = SchemaDiff.diff(shapes(V1), shapes(V2));
+        List<String> changes = report.changes().stream()
+                .map(c -> c.type() + " " + c.change() + " " + c.field() + " " + c.detail() + " " + c.backward() + "/" + c.forward())
+                .toList();
+        assertEquals(List.of(
+                "com.shop.Channel TYPE_ADDED null fixed true/true",
+                "com.shop.Order FIELD_OPTIONAL id string -> union<null,string> true/false",
+                "com.shop.Order FIELD_REQUIRED note union<null,string> -> string false/true",
+                "com.shop.Order REQUIRED_FIELD_REMOVED legacy int true/false",
+                "com.shop.Order UNION_NARROWED payment removed long false/true",
+                "com.shop.Order UNION_WIDENED payment added double true/false",
+                "com.shop.Order OPTIONAL_FIELD_ADDED coupon union<null,string> true/true",
+                "com.shop.Order REQUIRED_FIELD_ADDED channel com.shop.Channel false/true",
+                "com.shop.Status ENUM_NARROWED null removed LOST false/true",
+                "com.shop.Status ENUM_WIDENED null added SHIPPED true/false"), changes);
+        assertEquals(4, report.types());
+        assertEquals(3, report.changedTypes());
+        assertEquals(4, report.backwardIncompatible());
+        assertEquals(4, report.forwardIncompatible());
+        assertTrue(SchemaDiff.diff(shapes(V2), shapes(V2)).changes().isEmpty());
+    }
+
+    @Test
+    void snapshotsRoundTrip() throws Exception {
+        File snapshot = new File(dir, "snapshot.json");
+        assertNull(SchemaDiff.load(snapshot));
+        SchemaDiff.save(snapshot, shapes(V1));
+        assertEquals(shapes(V1), SchemaDiff.load(snapshot));
+        assertEquals(0, SchemaDiff.diff(SchemaDiff.load(snapshot), shapes(V1)).changedTypes());
+    }
+}
@@ -0,0 +1,57 @@
+package io.github.s1m0n;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SchemaGraphTest {
+
+    private static final String MONEY = "{ \"type\": \"record\", \"name\": \"Money\", \"namespace\": \"com.shop\", \"fields\": [\n" +
+            "  { \"name\": \"currency\", \"type\": { \"type\": \"enum\", \"name\": \"Currency\", \"symbols\": [\"EUR\", \"USD\"] } },\n" +
+            "  { \"name\": \"amount\", \"type\": { \"type\": \"bytes\", \"logicalType\": \"decimal\", \"precision\": 10, \"scale\": 2 } }\n" +
+            "] }";
+    private static final String ITEM = "{ \"type\": \"record\", \"name\": \"Item\", \"namespace\": \"com.shop\", \"fields\": [\n" +
+            "  { \"name\": \"price\", \"type\": \"Money\" },\n" +
+            "  { \"name\": \"tags\", \"type\": { \"type\": \"array\", \"items\": \"string\" } }\n" +
+            "] }";
+    private static final String ORDER = "{ \"type\": \"record\", \"name\": \"com.shop.Order\", \"fields\": [\n" +
+            "  { \"name\": \"items\", \"type\": { \"type\": \"array\", \"items\": \"Item\" } },\n" +
+            "  { \"name\": \"total\", \"type\": [\"null\", \"com.shop.Money\"] }\n" +
+            "] }";
+
+    @Test
+    void scanFindsDefinedAndReferencedTypes() {
+        SchemaGraph.Node money = SchemaGraph.scan("money.avsc", MONEY);
+        assertEquals(Set.of("com.shop.Money", "com.shop.Currency"), money.defines());
+        assertTrue(money.references().isEmpty());
+
+        SchemaGraph.Node order = SchemaGraph.scan("order.avsc", ORDER);
+        assertEquals(Set.of("com.shop.Order"), order.defines());
+        assertEquals(Set.of("com.shop.Item", "com.shop.Money"), order.references());
+    }
+
+    @Test
+    void parseOrderPutsDefinitionsFirstAndDependentsAreTransitive() {
+        SchemaGraph graph = new SchemaGraph(List.of(
+                SchemaGraph.scan("order.avsc", ORDER),
+                SchemaGraph.scan("item.avsc", ITEM),
+                SchemaGraph.scan("money.avsc", MONEY)));
+
+        assertEquals(List.of("money.avsc", "item.avsc", "order.avsc"), graph.parseOrder(List.of("order.avsc")));
+        assertEquals(List.of("money.avsc", "item.avsc"), graph.parseOrder(List.of("item.avsc")));
+        assertEquals(Set.of("item.avsc", "order.avsc"), graph.dependents(Set.of("com.shop.Money")));
+        assertEquals(Set.of("order.avsc"), graph.dependents(Set.of("com.shop.Item")));
+    }
+
+    @Test
+    void cyclicFilesAreRejected() {
+        String a = "{ \"type\": \"record\", \"name\": \"A\", \"fields\": [ { \"name\": \"b\", \"type\": [\"null\", \"B\"] } ] }";
+        String b = "{ \"type\": \"record\", \"name\": \"B\", \"fields\": [ { \"name\": \"a\", \"type\": [\"null\", \"A\"] } ] }";
+        SchemaGraph graph = new SchemaGraph(List.of(SchemaGraph.scan("a.avsc", a), SchemaGraph.scan("b.avsc", b)));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> graph.parseOrder(List.of("a.avsc")));
+        assertTrue(e.getMessage().contains("a.avsc -> b.avsc -> a.avsc"));
+    }
+}
@@ -0,0 +1,83 @@
+package io.github.s1m0n;
+
+import org.apache.avro.Schema;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SchemaSourcesTest {
+
+    private static final String PROTOCOL = "{ \"protocol\": \"Shop\", \"namespace\": \"com.shop\",\n" +
+            "  \"types\": [\n" +
+            "    { \"type\": \"enum\", \"name\": \"Status\", \"symbols\": [\"NEW\", \"DONE\"] },\n" +
+            "    { \"type\": \"record\", \"name\": \"Order\", \"fields\": [\n" +
+            "      { \"name\": \"status\", \"type\": \"Status\" },\n" +
+            "      { \"name\": \"amount\", \"type\": \"double\", \"default\": 12345678901234567890.123456789 },\n" +
+            "      { \"name\": \"total\", \"type\": \"com.money.Money\" }\n" +
+            "    ] },\n" +
+            "    { \"type\": \"fixed\", \"name\": \"other.Hash\", \"size\": 16 }\n" +
+            "  ],\n" +
+            "  \"messages\": { \"get\": { \"request\": [], \"response\": \"Order\" } }\n" +
+            "}";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void protocolBecomesUnionOfItsTypesInItsNamespace() throws Exception {
+        Schema money = new Schema.Parser().parse("{ \"type\": \"record\", \"name\": \"Money\", \"namespace\": \"com.money\", \"fields\": [] }");
+        Schema union = new Schema.Parser().addTypes(List.of(money)).parse(SchemaSources.protocolTypes(PROTOCOL));
+
+        assertEquals(List.of("com.shop.Status", "com.shop.Order", "other.Hash"),
+                union.getTypes().stream().map(Schema::getFullName).toList());
+        assertEquals("com.shop.Status", union.getTypes().get(1).getField("status").schema().getFullName());
+        // Defaults are read like from a schema file
+        Schema direct = new Schema.Parser().parse("{ \"type\": \"record\", \"name\": \"D\", \"fields\": [\n" +
+                "  { \"name\": \"amount\", \"type\": \"double\", \"default\": 12345678901234567890.123456789 } ] }");
+        AvroToJsonSchemaConverter converter = new AvroToJsonSchemaConverter();
+        assertEquals(converter.getDefaultValue(direct.getField("amount")),
+                converter.getDefaultValue(union.getTypes().get(1).getField("amount")));
+
+        SchemaGraph.Node node = SchemaGraph.scan("shop.avpr", SchemaSources.protocolTypes(PROTOCOL));
+        assertEquals(Set.of("com.shop.Status", "com.shop.Order", "other.Hash"), node.defines());
+        assertEquals(Set.of("com.money.Money"), node.references());
+
+        assertThrows(IllegalArgumentException.class, () -> SchemaSources.protocolTypes("{ \"type\": \"string\" }"));
+    }
+
+    @Test
+    void idlProtocolsAndSchemasAreParsedWithTheirImports() throws Exception {
+        Files.writeString(dir.resolve("common.avdl"), "namespace com.common;\nrecord Money { string currency; }\n");
+        String billing = "@namespace(\"com.billing\")\nprotocol Billing {\n" +
+                "  import idl \"common.avdl\";\n" +
+                "  record Invoice { long id; com.common.Money total; }\n" +
+                "  Invoice fetch(long id);\n" +
+                "}\n";
+        Path file = Files.writeString(dir.resolve("billing.avdl"), billing);
+        SourceFile source = new SourceFile(file, "billing.avdl", Files.size(file), 0);
+
+        Schema union = new Schema.Parser().parse(SchemaSources.schemaJson(source, billing));
+        assertEquals(List.of("com.common.Money", "com.billing.Invoice"),
+                union.getTypes().stream().map(Schema::getFullName).toList());
+
+        String main = "namespace com.main;\nschema Wrapper;\nrecord Wrapper { string value; }\n";
+        Schema wrapper = new Schema.Parser().parse(SchemaSources.schemaJson(new SourceFile(file, "main.avdl", 0, 0), main));
+        assertEquals("com.main.Wrapper", wrapper.getFullName());
+
+        assertEquals("\"string\"", SchemaSources.schemaJson(new SourceFile(file, "a.avsc", 0, 0), "\"string\""));
+    }
+
+    @Test
+    void baseNameStripsSourceExtensions() {
+        assertEquals("shop/order", SchemaSources.baseName("shop/order.avsc"));
+        assertEquals("api/shop", SchemaSources.baseName("api/shop.avpr"));
+        assertEquals("api/billing", SchemaSources.baseName("api/billing.avdl"));
+        assertEquals("notes.json", SchemaSources.baseName("notes.json"));
+    }
+}
@@ -0,0 +1,80 @@
+package io.github.s1m0n;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SourceRootsTest {
+
+    @TempDir
+    Path dir;
+
+    private Path jar(String name, String... entries) throws Exception {
+        Path jar = dir.resolve(name);
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar))) {
+            for (String entry : entries) {
+                out.putNextEntry(new ZipEntry(entry));
+                if (!entry.endsWith("/")) out.write(("\"" + name + "\"").getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+        return jar;
+    }
+
+    private static List<String> scan(Path root) throws Exception {
+        return new SourceScanner(List.of(), List.of("internal/**"), true, true, 0, w -> {
+        }).scan(root).stream().map(SourceFile::relativeName).sorted().toList();
+    }
+
+    @Test
+    void archivesAreScannedInPlace() throws Exception {
+        Path jar = jar("schemas.jar", "shop/", "shop/order.avsc", "shop/notes.txt", "internal/", "internal/x.avsc", "a.avsc");
+        assertTrue(SourceRoots.isArchive(jar.toFile()));
+        assertFalse(SourceRoots.isArchive(dir.resolve("missing.zip").toFile()));
+
+        SourceFile order;
+        try (SourceRoots roots = new SourceRoots()) {
+            Path root = roots.archive(jar);
+            assertEquals(List.of("a.avsc", "shop/order.avsc"), scan(root));
+            order = new SourceScanner(List.of("shop/*.avsc"), List.of(), true, true, 0, w -> {
+            }).scan(root).getFirst();
+            assertEquals("\"schemas.jar\"", Files.readString(order.path()));
+            assertEquals(order.path().toUri().toString(), order.location());
+            assertTrue(order.location().startsWith("jar:file:") && order.location().endsWith("!/shop/order.avsc"), order.location());
+        }
+        assertFalse(order.path().getFileSystem().isOpen());
+    }
+
+    @Test
+    void classpathResourceIsFoundInDirectoriesAndJars() throws Exception {
+        Path classes = dir.resolve("classes");
+        Files.createDirectories(classes.resolve("com/shop/schemas"));
+        Files.writeString(classes.resolve("com/shop/schemas/order.avsc"), "\"classes\"");
+        Path jar = jar("shared.jar", "com/", "com/shop/", "com/shop/schemas/", "com/shop/schemas/order.avsc",
+                "com/shop/schemas/item.avsc");
+        Path other = jar("other.jar", "com/", "com/other/");
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{classes.toUri().toURL(), other.toUri().toURL(), jar.toUri().toURL()}, null);
+             SourceRoots roots = new SourceRoots()) {
+            List<Path> found = roots.classpath(loader, "/com/shop/schemas");
+            assertEquals(2, found.size());
+            assertEquals(classes.resolve("com/shop/schemas"), found.get(0));
+            assertEquals(List.of("order.avsc"), scan(found.get(0)));
+            assertEquals(List.of("item.avsc", "order.avsc"), scan(found.get(1)));
+
+            assertTrue(roots.classpath(loader, "com/missing").isEmpty());
+            assertThrows(java.io.IOException.class, () -> roots.classpath(loader, "com/shop/schemas/order.avsc"));
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package io.github.s1m0n;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SourceScannerTest {
+
+    @TempDir
+    Path root;
+
+    private List<String> scan(List<String> includes, List<String> excludes, boolean recursive, boolean followSymlinks,
+                              List<String> warnings) throws Exception {
+        SourceScanner scanner = new SourceScanner(includes, excludes, recursive, followSymlinks, 0, warnings::add);
+        return scanner.scan(root).stream().map(s -> s.relativeName().replace(File.separatorChar, '/')).sorted().toList();
+    }
+
+    private void touch(String relative) throws Exception {
+        Path file = root.resolve(relative);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, "\"string\"");
+    }
+
+    @Test
+    void includesAndExcludesAreMatchedAgainstRelativePaths() throws Exception {
+        touch("a.avsc");
+        touch("b.json");
+        touch("shop/order.avsc");
+        touch("shop/internal/secret.avsc");
+        touch("legacy/old.avsc");
+        List<String> warnings = new ArrayList<>();
+
+        assertEquals(List.of("a.avsc", "legacy/old.avsc", "shop/internal/secret.avsc", "shop/order.avsc"),
+                scan(List.of(), List.of(), true, true, warnings));
+        assertEquals(List.of("a.avsc"), scan(List.of(), List.of(), false, true, warnings));
+        assertEquals(List.of("a.avsc", "shop/order.avsc"),
+                scan(List.of(), List.of("legacy", "**/internal"), true, true, warnings));
+        assertEquals(List.of("b.json", "shop/order.avsc"),
+                scan(List.of("*.json", "shop/*.avsc"), List.of(), true, true, warnings));
+        assertTrue(warnings.isEmpty());
+    }
+
+    @Test
+    void sourcesCarrySizeAndModificationTime() throws Exception {
+        touch("a.avsc");
+        SourceFile source = new SourceScanner(null, null, true, true, 0, w -> {
+        }).scan(root).getFirst();
+        assertEquals(Files.size(root.resolve("a.avsc")), source.size());
+        assertEquals(Files.getLastModifiedTime(root.resolve("a.avsc")).toMillis(), source.lastModified());
+    }
+
+    @Test
+    void symbolicLinkLoopsAreSkipped() throws Exception {
+        touch("shop/order.avsc");
+        Files.createSymbolicLink(root.resolve("shop/loop"), root);
+        Files.createSymbolicLink(root.resolve("linked"), root.resolve("shop"));
+        List<String> warnings = new ArrayList<>();
+
+        assertEquals(List.of("linked/order.avsc", "shop/order.avsc"), scan(List.of(), List.of(), true, true, warnings));
+        assertEquals(2, warnings.size(), warnings.toString());
+        assertEquals(List.of("shop/order.avsc"), scan(List.of(), List.of(), true, false, warnings));
+    }
+
+    @Test
+    void scanStopsAfterTheLimit() throws Exception {
+        for (int i = 0; i < 10; i++) touch("s" + i + ".avsc");
+        assertEquals(4, new SourceScanner(null, null, true, true, 3, w -> {
+        }).scan(root).size());
+    }
+}
@@ -0,0 +1,56 @@
+package io.github.s1m0n;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SourceWatcherTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void reportsChangesIncludingFilesInNewDirectories() throws Exception {
+        Path existing = Files.writeString(dir.resolve("a.avsc"), "\"string\"");
+        try (SourceWatcher watcher = new SourceWatcher(dir, true)) {
+            assertTrue(watcher.awaitChanges(50, 50).isEmpty());
+
+            Files.writeString(existing, "\"long\"");
+            assertTrue(awaitAll(watcher, Set.of(existing)));
+
+            Path sub = Files.createDirectory(dir.resolve("sub"));
+            assertTrue(awaitAll(watcher, Set.of(sub)));
+            Path nested = Files.writeString(sub.resolve("b.avsc"), "\"int\"");
+            assertTrue(awaitAll(watcher, Set.of(nested)));
+
+            Files.delete(nested);
+            assertTrue(awaitAll(watcher, Set.of(nested)));
+        }
+    }
+
+    @Test
+    void nonRecursiveWatcherIgnoresSubdirectories() throws Exception {
+        Path sub = Files.createDirectory(dir.resolve("sub"));
+        try (SourceWatcher watcher = new SourceWatcher(dir, false)) {
+            Files.writeString(sub.resolve("b.avsc"), "\"int\"");
+            Path top = Files.writeString(dir.resolve("a.avsc"), "\"string\"");
+            assertTrue(awaitAll(watcher, Set.of(top)));
+            assertFalse(watcher.awaitChanges(200, 50).contains(sub.resolve("b.avsc")));
+        }
+    }
+
+    private static boolean awaitAll(SourceWatcher watcher, Set<Path> expected) throws Exception {
+        Set<Path> seen = new HashSet<>();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!seen.containsAll(expected) && System.currentTimeMillis() < deadline) {
+            seen.addAll(watcher.awaitChanges(1_000, 50));
+        }
+        return seen.containsAll(expected);
+    }
+}
@@ -0,0 +1,41 @@
+package io.github.s1m0n;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StateDirectoryLockTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @SuppressWarnings("try")
+    void secondBuildWaitsUntilTheFirstReleasesTheDirectory() throws Exception {
+        Path state = dir.resolve("avro-to-json");
+        CompletableFuture<Void> second;
+        try (StateDirectoryLock lock = StateDirectoryLock.acquire(state, new SystemStreamLog())) {
+            assertTrue(Files.isRegularFile(state.resolve(StateDirectoryLock.LOCK_FILE)));
+            second = CompletableFuture.runAsync(() -> {
+                try (StateDirectoryLock other = StateDirectoryLock.acquire(state, new SystemStreamLog())) {
+                    assertNotNull(other);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            assertThrows(TimeoutException.class, () -> second.get(200, TimeUnit.MILLISECONDS));
+        }
+        second.get(5, TimeUnit.SECONDS);
+
+        // Released locks can be taken again by the same thread
+        StateDirectoryLock.acquire(state, new SystemStreamLog()).close();
+    }
+}
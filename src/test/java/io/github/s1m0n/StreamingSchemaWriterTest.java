@@ -0,0 +1,162 @@
+package io.github.s1m0n;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import org.apache.avro.Schema;
+import org.apache.avro.util.internal.Accessor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.StreamWriteConstraints;
+import tools.jackson.core.json.JsonFactory;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Verifies that the streaming writer produces exactly the bytes of the serialized map tree.
+ */
+public class StreamingSchemaWriterTest {
+
+    private static final ObjectWriter WRITER = new ObjectMapper().writerWithDefaultPrettyPrinter();
+
+    private static final String ORDER = "{\n" +
+            "  \"type\": \"record\", \"name\": \"Order\", \"namespace\": \"com.shop\", \"doc\": \"An order\",\n" +
+            "  \"fields\": [\n" +
+            "    { \"name\": \"id\", \"type\": { \"type\": \"string\", \"logicalType\": \"uuid\" }, \"doc\": \"Order id\" },\n" +
+            "    { \"name\": \"createdAt\", \"type\": { \"type\": \"long\", \"logicalType\": \"timestamp-millis\" } },\n" +
+            "    { \"name\": \"billing\", \"type\": { \"type\": \"record\", \"name\": \"Address\", \"doc\": \"Postal address\", \"fields\": [\n" +
+            "        { \"name\": \"street\", \"type\": \"string\", \"default\": \"Main\" },\n" +
+            "        { \"name\": \"zip\", \"type\": [\"null\", \"int\"], \"default\": null }\n" +
+            "    ] }, \"doc\": \"Billing address\" },\n" +
+            "    { \"name\": \"shipping\", \"type\": [\"null\", \"Address\"], \"default\": null, \"doc\": \"Shipping address\" },\n" +
+            "    { \"name\": \"history\", \"type\": { \"type\": \"array\", \"items\": \"Address\" }, \"default\": [{ \"street\": \"Old\", \"zip\": 1 }] },\n" +
+            "    { \"name\": \"status\", \"type\": { \"type\": \"enum\", \"name\": \"Status\", \"symbols\": [\"NEW\", \"DONE\"] }, \"default\": \"NEW\" },\n" +
+            "    { \"name\": \"price\", \"type\": { \"type\": \"bytes\", \"logicalType\": \"decimal\", \"precision\": 10, \"scale\": 2 } },\n" +
+            "    { \"name\": \"hash\", \"type\": [\"null\", { \"type\": \"fixed\", \"name\": \"Hash\", \"size\": 16 }] },\n" +
+            "    { \"name\": \"ratio\", \"type\": \"double\", \"default\": 0.5 },\n" +
+            "    { \"name\": \"salt\", \"type\": \"bytes\", \"default\": \"\\u0000ab\" },\n" +
+            "    { \"name\": \"attributes\", \"type\": { \"type\": \"map\", \"values\": [\"null\", \"string\", \"long\"] }, \"default\": { \"a\": \"b\" } },\n" +
+            "    { \"name\": \"payment\", \"type\": [\"null\", { \"type\": \"record\", \"name\": \"Card\", \"fields\": [] }, \"string\"] }\n" +
+            "  ]\n" +
+            "}";
+
+    private static final String MUTUAL = "{\n" +
+            "  \"type\": \"record\", \"name\": \"Root\",\n" +
+            "  \"fields\": [\n" +
+            "    { \"name\": \"a\", \"type\": { \"type\": \"record\", \"name\": \"A\", \"fields\": [\n" +
+            "        { \"name\": \"b\", \"type\": [\"null\", { \"type\": \"record\", \"name\": \"B\", \"doc\": \"B doc\", \"fields\": [\n" +
+            "            { \"name\": \"a\", \"type\": [\"null\", \"A\"] },\n" +
+            "            { \"name\": \"root\", \"type\": [\"null\", \"Root\"] }\n" +
+            "        ] }] }\n" +
+            "    ] } },\n" +
+            "    { \"name\": \"b\", \"type\": \"B\", \"doc\": \"Field doc\" },\n" +
+            "    { \"name\": \"bs\", \"type\": { \"type\": \"array\", \"items\": [\"null\", \"B\"] } }\n" +
+            "  ]\n" +
+            "}";
+
+    private static final String ARRAY_ROOT = "{ \"type\": \"array\", \"items\": { \"type\": \"record\", \"name\": \"Node\", \"fields\": [\n" +
+            "  { \"name\": \"children\", \"type\": { \"type\": \"array\", \"items\": \"Node\" } }\n" +
+            "] } }";
+
+    private static final String UNION_ROOT = "[\"null\", { \"type\": \"enum\", \"name\": \"E\", \"doc\": \"An enum\", \"symbols\": [\"X\"] }]";
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void streamingOutputMatchesTreeOutput(boolean useReferences) {
+        for (JsonSchemaDraft draft : JsonSchemaDraft.values()) {
+            AvroToJsonSchemaConverter converter = AvroToJsonSchemaConverter.builder().useReferences(useReferences).draft(draft).build();
+            StreamingSchemaWriter writer = new StreamingSchemaWriter(converter);
+            for (String avsc : new String[]{ORDER, MUTUAL, ARRAY_ROOT, UNION_ROOT, "\"string\""}) {
+                Schema schema = new Schema.Parser().parse(avsc);
+                String expected = WRITER.writeValueAsString(converter.convert(schema));
+
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                try (JsonGenerator gen = WRITER.createGenerator(out)) {
+                    writer.write(schema, gen);
+                }
+                assertEquals(expected, out.toString(), draft + ": " + avsc);
+            }
+        }
+    }
+
+    @Test
+    void decimalDefaultsAreStreamedExactly() {
+        AvroToJsonSchemaConverter converter = new AvroToJsonSchemaConverter();
+        Schema schema = Schema.createRecord("E", null, null, false, List.of(
+                new Schema.Field("amount", Schema.create(Schema.Type.DOUBLE), null, new BigDecimal("12345678901234567890.123456789")),
+                new Schema.Field("tags", Schema.createMap(Schema.create(Schema.Type.STRING)), null, Map.of("k", "v"))));
+        String expected = WRITER.writeValueAsString(converter.convert(schema));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator gen = WRITER.createGenerator(out)) {
+            new StreamingSchemaWriter(converter).write(schema, gen);
+        }
+        assertEquals(expected, out.toString());
+        assertTrue(out.toString().contains("\"default\" : 12345678901234567890.123456789"), out.toString());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void deeplyNestedSchemasStreamInASmallThreadStack(boolean useReferences) throws InterruptedException {
+        int depth = 5_000;
+        Schema schema = Schema.create(Schema.Type.STRING);
+        for (int i = 0; i < depth; i++) {
+            schema = switch (i % 4) {
+                case 0 -> Schema.createRecord("R" + i, "level " + i, "com.deep", false,
+                        List.of(new Schema.Field("f", schema, null, (Object) null)));
+                case 1 -> Schema.createUnion(Schema.create(Schema.Type.NULL), schema);
+                case 2 -> Schema.createArray(schema);
+                default -> Schema.createMap(schema);
+            };
+        }
+        JsonNode nested = JsonNodeFactory.instance.textNode("leaf");
+        for (int i = 0; i < depth; i++) nested = JsonNodeFactory.instance.arrayNode().add(nested);
+        Schema deep = Schema.createRecord("D", null, null, false, List.of(
+                new Schema.Field("deep", schema),
+                Accessor.createField("d", Schema.create(Schema.Type.STRING), null, nested, false, Schema.Field.Order.ASCENDING)));
+
+        // Deep documents exceed the default nesting limit of Jackson's generators
+        ObjectMapper mapper = JsonMapper.builder(JsonFactory.builder()
+                .streamWriteConstraints(StreamWriteConstraints.builder().maxNestingDepth(Integer.MAX_VALUE).build())
+                .build()).build();
+        AvroToJsonSchemaConverter converter = AvroToJsonSchemaConverter.builder().useReferences(useReferences).build();
+        // Serializing the tree recurses, so the expected output needs a large stack
+        String expected = onStack(1024L * 1024 * 1024, () -> mapper.writeValueAsString(converter.convert(deep)));
+        String streamed = onStack(256 * 1024, () -> {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (JsonGenerator gen = mapper.createGenerator(out)) {
+                new StreamingSchemaWriter(converter).write(deep, gen);
+            }
+            return out.toString();
+        });
+        assertEquals(expected, streamed);
+    }
+
+    private static String onStack(long stackSize, Supplier<String> write) throws InterruptedException {
+        AtomicReference<Object> result = new AtomicReference<>();
+        Thread thread = new Thread(null, () -> {
+            try {
+                result.set(write.get());
+            } catch (Throwable t) {
+                result.set(t);
+            }
+        }, "stack-" + stackSize, stackSize);
+        thread.start();
+        thread.join();
+        if (result.get() instanceof Throwable t) fail(t);
+        return (String) result.get();
+    }
+}
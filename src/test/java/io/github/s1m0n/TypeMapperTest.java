@@ -0,0 +1,93 @@
+package io.github.s1m0n;
+
+import org.apache.avro.Schema;
+import org.junit.jupiter.api.Test;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TypeMapperTest {
+
+    private static final ObjectWriter WRITER = new ObjectMapper().writerWithDefaultPrettyPrinter();
+
+    private static final String AVSC = "{ \"type\": \"record\", \"name\": \"Event\", \"fields\": [\n" +
+            "  { \"name\": \"id\", \"type\": { \"type\": \"string\", \"logicalType\": \"uuid\" } },\n" +
+            "  { \"name\": \"at\", \"type\": [\"null\", { \"type\": \"long\", \"logicalType\": \"timestamp-nanos\" }] },\n" +
+            "  { \"name\": \"count\", \"type\": [\"null\", \"int\"] },\n" +
+            "  { \"name\": \"label\", \"type\": [\"null\", \"string\"], \"doc\": \"Label\" }\n" +
+            "] }";
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void customMappersReplaceTheDefaults() {
+        AvroToJsonSchemaConverter converter = AvroToJsonSchemaConverter.builder()
+                .logicalTypeMapper(Schema.Type.LONG, "timestamp-nanos", (schema, node) -> {
+                    node.put("type", "string");
+                    node.put("format", "date-time");
+                    node.put("x-precision", "nanos");
+                })
+                .typeMapper(Schema.Type.INT, (schema, node) -> {
+                    node.put("type", "integer");
+                    node.put("minimum", Integer.MIN_VALUE);
+                    node.put("maximum", Integer.MAX_VALUE);
+                })
+                .build();
+        Map<String, Object> props = (Map<String, Object>) converter.convert(new Schema.Parser().parse(AVSC)).get("properties");
+
+        assertEquals(Map.of("type", "string", "format", "uuid"), props.get("id"));
+        Map<String, Object> at = (Map<String, Object>) props.get("at");
+        assertEquals(List.of("string", "null"), at.get("type"));
+        assertEquals("nanos", at.get("x-precision"));
+        Map<String, Object> count = (Map<String, Object>) props.get("count");
+        assertEquals(List.of("integer", "null"), count.get("type"));
+        assertEquals(Integer.MAX_VALUE, count.get("maximum"));
+    }
+
+    @Test
+    void streamingOutputFollowsCustomMappers() {
+        // A mapper without a single "type" keyword makes nullable unions fall back to anyOf
+        AvroToJsonSchemaConverter converter = AvroToJsonSchemaConverter.builder()
+                .typeMapper(Schema.Type.STRING, (schema, node) -> node.put("type", List.of("string", "number")))
+                .logicalTypeMapper("timestamp-nanos", (schema, node) -> node.put("x-avro-logicalType", "timestamp-nanos"))
+                .build();
+        Schema schema = new Schema.Parser().parse(AVSC);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator gen = WRITER.createGenerator(out)) {
+            new StreamingSchemaWriter(converter).write(schema, gen);
+        }
+        String expected = WRITER.writeValueAsString(converter.convert(schema));
+        assertEquals(expected, out.toString());
+        assertTrue(expected.contains("anyOf"));
+    }
+
+    @Test
+    void containerTypesCannotBeMapped() {
+        AvroToJsonSchemaConverter.Builder builder = AvroToJsonSchemaConverter.builder();
+        assertThrows(IllegalArgumentException.class, () -> builder.typeMapper(Schema.Type.RECORD, (schema, node) -> {
+        }));
+        assertThrows(IllegalArgumentException.class, () -> builder.logicalTypeMapper(Schema.Type.ARRAY, "x", (schema, node) -> {
+        }));
+    }
+
+    @Test
+    void warningsGoToTheHandler() {
+        List<String> warnings = new ArrayList<>();
+        AvroToJsonSchemaConverter converter = AvroToJsonSchemaConverter.builder().warningHandler(warnings::add).build();
+        Map<String, Schema> schemas = Map.of(
+                "a", new Schema.Parser().parse("{ \"type\": \"enum\", \"name\": \"E\", \"symbols\": [\"A\"] }"));
+        converter.convertBundle(schemas);
+        assertTrue(warnings.isEmpty());
+        Map<String, Schema> conflicting = new LinkedHashMap<>(schemas);
+        conflicting.put("b", new Schema.Parser().parse("{ \"type\": \"enum\", \"name\": \"E\", \"symbols\": [\"B\"] }"));
+        converter.convertBundle(conflicting);
+        assertEquals(List.of("Conflicting definitions of named type E; keeping the first one"), warnings);
+    }
+}